@@ -0,0 +1,303 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Pattern;
+
+import org.fuchss.tools.tuple.Tuple3;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.kit.ipd.eagle.port.util.Serialize;
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * An embedded HTTP server that provides a web page for the classification of
+ * hypotheses. The page prefetches pages of pending hypotheses
+ * ({@code GET /api/next?count=<n>&after=<token>}) and submits decisions in
+ * batches ({@code POST /api/decisions}). The evaluation file is saved after each
+ * batch.
+ * <p>
+ * Requests are only accepted iff their {@code Host} (and {@code Origin}, if
+ * any) refers to this server by an IP address, {@code localhost} or the bound
+ * host name (against DNS rebinding). Each run creates a random token that is
+ * embedded in the page and has to be sent with every API request
+ * ({@code X-Annotation-Token}); decisions have to be sent as
+ * {@code application/json}. Thus, other sites cannot submit classifications
+ * (e.g. by simple form posts).
+ */
+public final class AnnotationServer implements AutoCloseable {
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final int MAX_PAGE_SIZE = 200;
+	private static final String TOKEN_HEADER = "X-Annotation-Token";
+	private static final String TOKEN_PLACEHOLDER = "${token}";
+	private static final Pattern IP_ADDRESS = Pattern.compile("[0-9.]+|\\[[0-9a-fA-F:.]+\\]");
+
+	private final HttpServer server;
+	private final ObjectMapper mapper;
+	private final byte[] page;
+	private final String token;
+	private final String hostName;
+
+	private Evaluator evaluator;
+	private int generation;
+	private long nextToken = 1;
+	private final Map<Long, Tuple3<Integer, HypothesisDTO, String>> pending = new LinkedHashMap<>();
+	private CountDownLatch finished;
+
+	/**
+	 * Create and start a new server.
+	 *
+	 * @param address the address to bind to
+	 * @throws IOException iff the server cannot be started
+	 */
+	public AnnotationServer(InetSocketAddress address) throws IOException {
+		this.mapper = Serialize.getObjectMapper(true);
+		byte[] random = new byte[32];
+		new SecureRandom().nextBytes(random);
+		this.token = HexFormat.of().formatHex(random);
+		this.hostName = address.getHostString().toLowerCase(Locale.ROOT);
+		try (InputStream in = AnnotationServer.class.getResourceAsStream("annotation.html")) {
+			if (in == null) {
+				throw new IOException("annotation.html not found");
+			}
+			this.page = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace(TOKEN_PLACEHOLDER, this.token).getBytes(StandardCharsets.UTF_8);
+		}
+
+		this.server = HttpServer.create(address, 0);
+		this.server.createContext("/", this::handlePage);
+		this.server.createContext("/api/next", this::handleNext);
+		this.server.createContext("/api/decisions", this::handleDecisions);
+		this.server.start();
+		System.err.println("Annotation server running at http://" + address.getHostString() + ":" + this.server.getAddress().getPort() + "/");
+	}
+
+	/**
+	 * Provide the pending hypotheses of an evaluator via the web page and wait
+	 * until all of them have been classified.
+	 *
+	 * @param evaluator the evaluator
+	 * @throws InterruptedException iff interrupted while waiting
+	 */
+	public void annotate(Evaluator evaluator) throws InterruptedException {
+		CountDownLatch latch;
+		synchronized (this) {
+			this.evaluator = evaluator;
+			this.generation++;
+			this.pending.clear();
+			if (!this.prefetch(1)) {
+				this.evaluator = null;
+				return;
+			}
+			latch = this.finished = new CountDownLatch(1);
+		}
+		latch.await();
+	}
+
+	private boolean prefetch(int count) {
+		for (var next : this.evaluator.findNextHypotheses(count)) {
+			this.pending.put(this.nextToken++, next);
+		}
+		return !this.pending.isEmpty();
+	}
+
+	private void handlePage(HttpExchange exchange) throws IOException {
+		if (!this.isAllowed(exchange, false)) {
+			return;
+		}
+		if (!"/".equals(exchange.getRequestURI().getPath())) {
+			this.send(exchange, 404, "text/plain", "Not found".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		this.send(exchange, 200, "text/html; charset=utf-8", this.page);
+	}
+
+	private void handleNext(HttpExchange exchange) throws IOException {
+		if (!this.isAllowed(exchange, true)) {
+			return;
+		}
+		Map<String, String> query = AnnotationServer.parseQuery(exchange.getRequestURI().getRawQuery());
+		int count;
+		long after;
+		try {
+			count = Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(query.getOrDefault("count", String.valueOf(DEFAULT_PAGE_SIZE)))));
+			after = Long.parseLong(query.getOrDefault("after", "0"));
+		} catch (NumberFormatException e) {
+			this.send(exchange, 400, "text/plain", e.getMessage().getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+
+		Map<String, Object> response = new HashMap<>();
+		List<Map<String, Object>> items = new ArrayList<>();
+		synchronized (this) {
+			if (this.evaluator != null) {
+				long available = this.pending.keySet().stream().filter(t -> t > after).count();
+				if (available < count) {
+					this.prefetch((int) (count - available));
+				}
+				for (var entry : this.pending.entrySet()) {
+					if (entry.getKey() > after && items.size() < count) {
+						items.add(this.toItem(entry.getKey(), entry.getValue()));
+					}
+				}
+				response.put("sentence", this.evaluator.getId());
+			}
+			response.put("generation", this.generation);
+			response.put("active", this.evaluator != null);
+		}
+		response.put("items", items);
+		this.send(exchange, 200, "application/json", this.mapper.writeValueAsBytes(response));
+	}
+
+	private Map<String, Object> toItem(long token, Tuple3<Integer, HypothesisDTO, String> hypothesis) {
+		Map<String, Object> item = new HashMap<>();
+		item.put("token", token);
+		item.put("layer", hypothesis.getFirst());
+		item.put("value", hypothesis.getSecond().getValue());
+		item.put("word", hypothesis.getThird());
+		return item;
+	}
+
+	private void handleDecisions(HttpExchange exchange) throws IOException {
+		if (!this.isAllowed(exchange, true)) {
+			return;
+		}
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			this.send(exchange, 405, "text/plain", "Use POST".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (contentType == null || !contentType.split(";", 2)[0].trim().equalsIgnoreCase("application/json")) {
+			this.send(exchange, 415, "text/plain", "Use application/json".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+
+		Decision[] decisions;
+		try (InputStream in = exchange.getRequestBody()) {
+			decisions = this.mapper.readValue(in, Decision[].class);
+		} catch (IOException e) {
+			this.send(exchange, 400, "text/plain", ("Invalid decisions: " + e.getMessage()).getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+
+		Map<String, Object> response = new HashMap<>();
+		synchronized (this) {
+			int accepted = 0;
+			if (this.evaluator != null) {
+				for (Decision decision : decisions) {
+					var hypothesis = decision.classification == null ? null : this.pending.remove(decision.token);
+					if (hypothesis != null) {
+						this.evaluator.setClassification(hypothesis.getFirst(), hypothesis.getSecond(), decision.classification);
+						accepted++;
+					}
+				}
+				this.save();
+				if (this.pending.isEmpty() && !this.prefetch(1)) {
+					this.evaluator = null;
+					this.finished.countDown();
+				}
+			}
+			response.put("accepted", accepted);
+			response.put("remaining", this.pending.size());
+			response.put("active", this.evaluator != null);
+		}
+		this.send(exchange, 200, "application/json", this.mapper.writeValueAsBytes(response));
+	}
+
+	// Check host, origin and (for API requests) the token .. rejected requests are
+	// answered with 403
+	private boolean isAllowed(HttpExchange exchange, boolean api) throws IOException {
+		Headers headers = exchange.getRequestHeaders();
+		String origin = headers.getFirst("Origin");
+		boolean allowed = this.isAllowedHost(headers.getFirst("Host")) //
+				&& (origin == null || origin.startsWith("http://") && this.isAllowedHost(origin.substring("http://".length())));
+		if (allowed && api) {
+			String token = headers.getFirst(TOKEN_HEADER);
+			allowed = token != null && MessageDigest.isEqual(this.token.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+		}
+		if (!allowed) {
+			exchange.getRequestBody().close();
+			this.send(exchange, 403, "text/plain", "Forbidden".getBytes(StandardCharsets.UTF_8));
+		}
+		return allowed;
+	}
+
+	private boolean isAllowedHost(String host) {
+		if (host == null) {
+			return false;
+		}
+		String name = host.toLowerCase(Locale.ROOT);
+		String port = "80";
+		int separator = name.lastIndexOf(':');
+		if (separator > name.lastIndexOf(']')) {
+			port = name.substring(separator + 1);
+			name = name.substring(0, separator);
+		}
+		if (!port.equals(String.valueOf(this.server.getAddress().getPort()))) {
+			return false;
+		}
+		return name.equals("localhost") || name.equals(this.hostName) || IP_ADDRESS.matcher(name).matches();
+	}
+
+	private void save() {
+		try {
+			this.evaluator.save();
+		} catch (IOException e) {
+			System.err.println("Error while saving file ..");
+		}
+	}
+
+	private void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> result = new HashMap<>();
+		if (query == null) {
+			return result;
+		}
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator > 0) {
+				result.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8), URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+	}
+
+	private static final class Decision {
+		private long token;
+		private Classification classification;
+
+		private Decision() {
+			// NOP (for deserialization)
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates bootstrap confidence intervals for {@link Score Scores}. The
+ * classified hypotheses of a score (true positives, false positives and false
+ * negatives) are resampled with replacement, i.e., the resampled counts are
+ * drawn from a multinomial distribution (by two binomial draws per sample). The
+ * samples are distributed over chunks that are processed in parallel (each with
+ * its own split of a {@link SplittableRandom}). The arrays for the resampled
+ * metrics are reused per thread and the intervals are remembered by counts
+ * (scores with the same counts get the same intervals as the same seed is used
+ * for each score).
+ */
+public final class Bootstrap {
+	private static final int CHUNK_SIZE = 256;
+	// Below this mean, binomial variates are drawn by inversion
+	private static final double INVERSION_MEAN = 10;
+	// log(k!) - log(Stirling approximation of k!) for small k
+	private static final double[] STIRLING_TAIL = new double[10];
+
+	static {
+		double logFactorial = 0;
+		for (int k = 0; k < STIRLING_TAIL.length; k++) {
+			logFactorial += k == 0 ? 0 : Math.log(k);
+			STIRLING_TAIL[k] = logFactorial - ((k + 0.5) * Math.log(k + 1.0) - (k + 1) + 0.5 * Math.log(2 * Math.PI));
+		}
+	}
+
+	private final int samples;
+	private final double confidence;
+	private final long seed;
+	// (tp:fp:fn) -> (precision, recall, f1) intervals
+	private final Map<String, ConfidenceInterval[]> intervals = new ConcurrentHashMap<>();
+	// (precision, recall, f1) of all samples
+	private final ThreadLocal<double[][]> buffers;
+
+	/**
+	 * Create a new bootstrap.
+	 *
+	 * @param samples    the number of resamples
+	 * @param confidence the confidence level (e.g. 0.95)
+	 * @param seed       the seed for the random number generators
+	 */
+	public Bootstrap(int samples, double confidence, long seed) {
+		if (samples <= 0) {
+			throw new IllegalArgumentException("Number of samples has to be positive: " + samples);
+		}
+		if (confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException("Confidence has to be in (0,1): " + confidence);
+		}
+		this.samples = samples;
+		this.confidence = confidence;
+		this.seed = seed;
+		this.buffers = ThreadLocal.withInitial(() -> new double[3][samples]);
+	}
+
+	/**
+	 * Calculate the confidence intervals of a score.
+	 *
+	 * @param score the score
+	 * @return the score with confidence intervals
+	 */
+	public Score apply(Score score) {
+		if (score.tp + score.fp + score.fn == 0) {
+			return score;
+		}
+		String key = score.tp + ":" + score.fp + ":" + score.fn;
+		ConfidenceInterval[] result = this.intervals.get(key);
+		if (result == null) {
+			// Not calculated within computeIfAbsent as the calculation runs in parallel
+			result = this.calculate(score.tp, score.fp, score.fn);
+			this.intervals.putIfAbsent(key, result);
+		}
+		return score.withConfidence(result[0], result[1], result[2]);
+	}
+
+	private ConfidenceInterval[] calculate(int tp, int fp, int fn) {
+		final int n = tp + fp + fn;
+		final double tpProbability = 1.0 * tp / n;
+		// Probability of a false positive among the items that are no true positive
+		final double fpProbability = fp + fn == 0 ? 0 : 1.0 * fp / (fp + fn);
+
+		double[][] buffer = this.buffers.get();
+		// Taken while in use (a nested calculation of this thread gets its own buffer)
+		this.buffers.remove();
+		try {
+			return this.calculate(n, tpProbability, fpProbability, buffer);
+		} finally {
+			this.buffers.set(buffer);
+		}
+	}
+
+	private ConfidenceInterval[] calculate(int n, double tpProbability, double fpProbability, double[][] buffer) {
+		double[] precision = buffer[0];
+		double[] recall = buffer[1];
+		double[] f1 = buffer[2];
+
+		int chunks = (this.samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		SplittableRandom root = new SplittableRandom(this.seed);
+		SplittableRandom[] randoms = new SplittableRandom[chunks];
+		for (int c = 0; c < chunks; c++) {
+			randoms[c] = root.split();
+		}
+
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			SplittableRandom random = randoms[c];
+			int end = Math.min(this.samples, (c + 1) * CHUNK_SIZE);
+			for (int i = c * CHUNK_SIZE; i < end; i++) {
+				int sampledTp = Bootstrap.binomial(random, n, tpProbability);
+				int sampledFp = Bootstrap.binomial(random, n - sampledTp, fpProbability);
+				int sampledFn = n - sampledTp - sampledFp;
+				double p = 1.0 * sampledTp / (sampledTp + sampledFp);
+				double r = 1.0 * sampledTp / (sampledTp + sampledFn);
+				precision[i] = p;
+				recall[i] = r;
+				f1[i] = 2 * p * r / (p + r);
+			}
+		});
+
+		return new ConfidenceInterval[] { this.interval(precision), this.interval(recall), this.interval(f1) };
+	}
+
+	/**
+	 * Draw a binomial variate: inversion for small means, otherwise transformed
+	 * rejection with decomposition (BTRD, see Hoermann: "The generation of binomial
+	 * random variates", 1993).
+	 *
+	 * @param random      the random number generator
+	 * @param n           the number of trials
+	 * @param probability the probability of success
+	 * @return the number of successes
+	 */
+	static int binomial(SplittableRandom random, int n, double probability) {
+		if (n == 0 || probability <= 0) {
+			return 0;
+		}
+		if (probability >= 1) {
+			return n;
+		}
+		if (probability > 0.5) {
+			return n - Bootstrap.binomial(random, n, 1 - probability);
+		}
+		if (n * probability < INVERSION_MEAN) {
+			return Bootstrap.binomialInversion(random, n, probability);
+		}
+		return Bootstrap.binomialRejection(random, n, probability);
+	}
+
+	private static int binomialInversion(SplittableRandom random, int n, double probability) {
+		// Count geometric waiting times until n trials are exceeded
+		double logFailure = Math.log1p(-probability);
+		int successes = 0;
+		long trials = 0;
+		while (true) {
+			trials += (long) Math.ceil(Math.log(1 - random.nextDouble()) / logFailure);
+			if (trials > n) {
+				return successes;
+			}
+			successes++;
+		}
+	}
+
+	private static int binomialRejection(SplittableRandom random, int n, double probability) {
+		double deviation = Math.sqrt(n * probability * (1 - probability));
+		double b = 1.15 + 2.53 * deviation;
+		double a = -0.0873 + 0.0248 * b + 0.01 * probability;
+		double c = n * probability + 0.5;
+		double vr = 0.92 - 4.2 / b;
+		double alpha = (2.83 + 5.1 / b) * deviation;
+		double ratio = probability / (1 - probability);
+		double mode = Math.floor((n + 1) * probability);
+
+		while (true) {
+			double u = random.nextDouble() - 0.5;
+			double v = random.nextDouble();
+			double us = 0.5 - Math.abs(u);
+			double k = Math.floor((2 * a / us + b) * u + c);
+			if (k < 0 || k > n) {
+				continue;
+			}
+			if (us >= 0.07 && v <= vr) {
+				return (int) k;
+			}
+
+			v = Math.log(v * alpha / (a / (us * us) + b));
+			double bound = (mode + 0.5) * Math.log((mode + 1) / (ratio * (n - mode + 1))) //
+					+ (n + 1) * Math.log((n - mode + 1) / (n - k + 1)) //
+					+ (k + 0.5) * Math.log(ratio * (n - k + 1) / (k + 1)) //
+					+ Bootstrap.stirlingTail(mode) + Bootstrap.stirlingTail(n - mode) - Bootstrap.stirlingTail(k) - Bootstrap.stirlingTail(n - k);
+			if (v <= bound) {
+				return (int) k;
+			}
+		}
+	}
+
+	private static double stirlingTail(double k) {
+		if (k < STIRLING_TAIL.length) {
+			return STIRLING_TAIL[(int) k];
+		}
+		double squared = (k + 1) * (k + 1);
+		return (1.0 / 12 - (1.0 / 360 - 1.0 / 1260 / squared) / squared) / (k + 1);
+	}
+
+	private ConfidenceInterval interval(double[] values) {
+		// NaN values will be sorted to the end
+		Arrays.sort(values);
+		int valid = values.length;
+		while (valid > 0 && Double.isNaN(values[valid - 1])) {
+			valid--;
+		}
+		if (valid == 0) {
+			return new ConfidenceInterval(Double.NaN, Double.NaN, this.confidence);
+		}
+
+		double alpha = 1 - this.confidence;
+		int lower = (int) Math.floor(alpha / 2 * (valid - 1));
+		int upper = (int) Math.ceil((1 - alpha / 2) * (valid - 1));
+		return new ConfidenceInterval(values[lower], values[upper], this.confidence);
+	}
+}
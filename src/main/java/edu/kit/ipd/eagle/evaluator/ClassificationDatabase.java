@@ -0,0 +1,109 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesis;
+
+/**
+ * A global store of classifications that can be shared by the evaluations of
+ * many directories (e.g. a whole corpus). In contrast to {@link EvaluationData}
+ * the classifications are indexed by layer and {@link IHypothesis#getValue()}.
+ */
+public final class ClassificationDatabase {
+
+	private List<Map<String, Classification>> classificationPerLayer;
+
+	private ClassificationDatabase() {
+		this.classificationPerLayer = new ArrayList<>();
+	}
+
+	/**
+	 * Load a database from a file. If the file does not exist, an empty database
+	 * will be created.
+	 *
+	 * @param databaseFile the database file
+	 * @return the database
+	 * @throws IOException iff deserialization fails
+	 */
+	public static ClassificationDatabase load(File databaseFile) throws IOException {
+		if (!databaseFile.exists()) {
+			return new ClassificationDatabase();
+		}
+		return JsonFiles.read(databaseFile, ClassificationDatabase.class);
+	}
+
+	/**
+	 * Save the database to a file (compressed iff its name ends with {@code .gz}).
+	 *
+	 * @param databaseFile the database file
+	 * @throws IOException iff serialization was not successful
+	 */
+	public synchronized void save(File databaseFile) throws IOException {
+		JsonFiles.write(databaseFile, this);
+	}
+
+	/**
+	 * Find the classification of a hypothesis.
+	 *
+	 * @param layer      the layer of the hypothesis
+	 * @param hypothesis the hypothesis
+	 * @return the classification, {@code null} iff unknown
+	 */
+	public synchronized Classification getClassification(int layer, IHypothesis hypothesis) {
+		if (layer >= this.classificationPerLayer.size()) {
+			return null;
+		}
+		return this.classificationPerLayer.get(layer).get(hypothesis.getValue());
+	}
+
+	/**
+	 * Provide classification information on a hypothesis. An existing
+	 * classification of the same value will be replaced.
+	 *
+	 * @param layer          the layer of the hypothesis
+	 * @param hypothesis     the hypothesis which shall be classified.
+	 * @param classification the classification
+	 */
+	public synchronized void setClassification(int layer, IHypothesis hypothesis, Classification classification) {
+		while (layer >= this.classificationPerLayer.size()) {
+			this.classificationPerLayer.add(new HashMap<>());
+		}
+		this.classificationPerLayer.get(layer).put(hypothesis.getValue(), classification);
+	}
+
+	/**
+	 * Remove the classification of a hypothesis (i.e. of its value).
+	 *
+	 * @param layer      the layer of the hypothesis
+	 * @param hypothesis the hypothesis
+	 */
+	public synchronized void removeClassification(int layer, IHypothesis hypothesis) {
+		if (layer < this.classificationPerLayer.size()) {
+			this.classificationPerLayer.get(layer).remove(hypothesis.getValue());
+		}
+	}
+
+	/**
+	 * Add all classifications of an evaluation to the database. Already known
+	 * values will not be replaced.
+	 *
+	 * @param evaluationData the evaluation data
+	 */
+	public synchronized void addAll(EvaluationData evaluationData) {
+		var data = evaluationData.readClassificationPerLayer();
+		for (int layer = 0; layer < data.size(); layer++) {
+			for (var entry : data.get(layer).entrySet()) {
+				for (var hypothesis : entry.getValue()) {
+					if (this.getClassification(layer, hypothesis) == null) {
+						this.setClassification(layer, hypothesis, entry.getKey());
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * A listener for new (or changed) classifications of hypotheses.
+ */
+@FunctionalInterface
+public interface ClassificationListener {
+	/**
+	 * Will be invoked iff a hypothesis has been classified (or its classification
+	 * has been removed).
+	 *
+	 * @param layer          the layer of the hypothesis
+	 * @param hypothesis     the hypothesis
+	 * @param classification the (new) classification or {@code null} iff the
+	 *                       classification has been removed
+	 */
+	void classified(int layer, HypothesisDTO hypothesis, Classification classification);
+}
@@ -0,0 +1,37 @@
+package edu.kit.ipd.eagle.evaluator;
+
+/**
+ * Defines a (two-sided) confidence interval of a metric.
+ */
+public final class ConfidenceInterval {
+	/**
+	 * The lower bound of the interval.
+	 */
+	public final double lower;
+	/**
+	 * The upper bound of the interval.
+	 */
+	public final double upper;
+	/**
+	 * The confidence level (e.g. 0.95).
+	 */
+	public final double level;
+
+	/**
+	 * Create a confidence interval.
+	 *
+	 * @param lower the lower bound
+	 * @param upper the upper bound
+	 * @param level the confidence level
+	 */
+	public ConfidenceInterval(double lower, double upper, double level) {
+		this.lower = lower;
+		this.upper = upper;
+		this.level = level;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%.2f%%, %.2f%%]", this.lower * 100, this.upper * 100);
+	}
+}
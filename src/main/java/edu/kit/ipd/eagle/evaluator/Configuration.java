@@ -1,35 +1,366 @@
 package edu.kit.ipd.eagle.evaluator;
 
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
 import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSet;
 
 /**
- * The configuration for the evaluator.
+ * The configuration for the evaluator. A configuration can be created from
+ * {@link Properties} (or command line options) using the keys defined in this
+ * class.
  *
  * @author Dominik Fuchss
  *
  */
 public final class Configuration {
-	private Configuration() {
-		throw new IllegalAccessError();
+
+	/**
+	 * Key for {@link #getMaxHypothesesPerPseudoHyp()}.
+	 */
+	public static final String KEY_MAX_HYPOTHESES_PER_PSEUDO_HYP = "max-hypotheses-per-pseudo-hyp";
+	/**
+	 * Key for {@link #getMaxHypothesesPerLeaf()}.
+	 */
+	public static final String KEY_MAX_HYPOTHESES_PER_LEAF = "max-hypotheses-per-leaf";
+	/**
+	 * Key for {@link #getSkipIffConfidenceLess()} (use {@code none} for
+	 * {@code null}).
+	 */
+	public static final String KEY_SKIP_IFF_CONFIDENCE_LESS = "skip-iff-confidence-less";
+	/**
+	 * Key for {@link #isStorePathsAsFiles()}.
+	 */
+	public static final String KEY_STORE_PATHS_AS_FILES = "store-paths-as-files";
+	/**
+	 * Key for {@link #getPathStorage()}.
+	 */
+	public static final String KEY_PATH_STORAGE = "path-storage";
+	/**
+	 * Key for {@link #getBootstrapSamples()}.
+	 */
+	public static final String KEY_BOOTSTRAP_SAMPLES = "bootstrap-samples";
+	/**
+	 * Key for {@link #getBootstrapConfidence()}.
+	 */
+	public static final String KEY_BOOTSTRAP_CONFIDENCE = "bootstrap-confidence";
+	/**
+	 * Key for {@link #getRankingCutoff()}.
+	 */
+	public static final String KEY_RANKING_CUTOFF = "ranking-cutoff";
+	/**
+	 * Key for {@link #getResultCache()} (use {@code none} for {@code null}).
+	 */
+	public static final String KEY_RESULT_CACHE = "result-cache";
+	/**
+	 * Key for {@link #getResultCacheSize()} (in MiB).
+	 */
+	public static final String KEY_RESULT_CACHE_SIZE = "result-cache-size";
+
+	/**
+	 * All keys of a configuration.
+	 */
+	public static final List<String> KEYS = List.of(KEY_MAX_HYPOTHESES_PER_PSEUDO_HYP, KEY_MAX_HYPOTHESES_PER_LEAF, KEY_SKIP_IFF_CONFIDENCE_LESS, KEY_STORE_PATHS_AS_FILES, KEY_PATH_STORAGE, KEY_BOOTSTRAP_SAMPLES,
+			KEY_BOOTSTRAP_CONFIDENCE, KEY_RANKING_CUTOFF, KEY_RESULT_CACHE, KEY_RESULT_CACHE_SIZE);
+
+	private static final String NONE = "none";
+	private static final long BOOTSTRAP_SEED = 42;
+	private static final long MIB = 1024 * 1024;
+
+	/**
+	 * The default configuration.
+	 */
+	public static final Configuration DEFAULT = new Configuration(3, 1, null, false, PathStorage.FILES, 0, 0.95, 3, null, 256 * MIB);
+
+	private final int maxHypothesesPerPseudoHyp;
+	private final int maxHypothesesPerLeaf;
+	private final Double skipIffConfidenceLess;
+	private final boolean storePathsAsFiles;
+	private final PathStorage pathStorage;
+	private final int bootstrapSamples;
+	private final double bootstrapConfidence;
+	private final int rankingCutoff;
+	private final File resultCache;
+	private final long resultCacheSize;
+
+	/**
+	 * Create a new configuration.
+	 *
+	 * @param maxHypothesesPerPseudoHyp see {@link #getMaxHypothesesPerPseudoHyp()}
+	 * @param maxHypothesesPerLeaf      see {@link #getMaxHypothesesPerLeaf()}
+	 * @param skipIffConfidenceLess     see {@link #getSkipIffConfidenceLess()}
+	 * @param storePathsAsFiles         see {@link #isStorePathsAsFiles()}
+	 * @param pathStorage               see {@link #getPathStorage()}
+	 * @param bootstrapSamples          see {@link #getBootstrapSamples()}
+	 * @param bootstrapConfidence       see {@link #getBootstrapConfidence()}
+	 * @param rankingCutoff             see {@link #getRankingCutoff()}
+	 * @param resultCache               see {@link #getResultCache()}
+	 * @param resultCacheSize           see {@link #getResultCacheSize()}
+	 */
+	public Configuration(int maxHypothesesPerPseudoHyp, int maxHypothesesPerLeaf, Double skipIffConfidenceLess, boolean storePathsAsFiles, PathStorage pathStorage, int bootstrapSamples,
+			double bootstrapConfidence, int rankingCutoff, File resultCache, long resultCacheSize) {
+		this.maxHypothesesPerPseudoHyp = maxHypothesesPerPseudoHyp;
+		this.maxHypothesesPerLeaf = maxHypothesesPerLeaf;
+		this.skipIffConfidenceLess = skipIffConfidenceLess;
+		this.storePathsAsFiles = storePathsAsFiles;
+		this.pathStorage = Objects.requireNonNull(pathStorage);
+		this.bootstrapSamples = bootstrapSamples;
+		this.bootstrapConfidence = bootstrapConfidence;
+		this.rankingCutoff = rankingCutoff;
+		this.resultCache = resultCache;
+		this.resultCacheSize = resultCacheSize;
 	}
 
 	/**
 	 * The maximum amount of hypotheses selected from pseudo hypotheses.
+	 *
+	 * @return the maximum amount of hypotheses
 	 */
-	public static final int MAX_HYPOTHESES_PER_PSEUDO_HYP = 3;
+	public int getMaxHypothesesPerPseudoHyp() {
+		return this.maxHypothesesPerPseudoHyp;
+	}
+
 	/**
 	 * The maximum amount of hypotheses per {@link IHypothesesSet} in a leaf.
+	 *
+	 * @return the maximum amount of hypotheses
 	 */
-	public static final int MAX_HYPOTHESES_PER_LEAF = 1;
+	public int getMaxHypothesesPerLeaf() {
+		return this.maxHypothesesPerLeaf;
+	}
+
 	/**
 	 * Indicates whether the evaluator shall skip values beneath a threshold (or
 	 * {@code null} if not intended) for leaves.
+	 *
+	 * @return the threshold or {@code null}
 	 */
-	public static final Double SKIP_IFF_CONFIDENCE_LESS = null; // 0.0;
+	public Double getSkipIffConfidenceLess() {
+		return this.skipIffConfidenceLess;
+	}
 
 	/**
 	 * Indicates whether paths shall be stored.
+	 *
+	 * @return the indicator
+	 */
+	public boolean isStorePathsAsFiles() {
+		return this.storePathsAsFiles;
+	}
+
+	/**
+	 * Defines how paths shall be stored iff {@link #isStorePathsAsFiles()} is set.
+	 *
+	 * @return the kind of storage
+	 */
+	public PathStorage getPathStorage() {
+		return this.pathStorage;
+	}
+
+	/**
+	 * The number of bootstrap samples for the confidence intervals of scores
+	 * ({@code 0} iff no confidence intervals shall be calculated).
+	 *
+	 * @return the number of samples
+	 */
+	public int getBootstrapSamples() {
+		return this.bootstrapSamples;
+	}
+
+	/**
+	 * The confidence level of the bootstrap confidence intervals.
+	 *
+	 * @return the confidence level
+	 */
+	public double getBootstrapConfidence() {
+		return this.bootstrapConfidence;
+	}
+
+	/**
+	 * The cutoff {@code k} for ranking metrics (e.g. precision@k) of
+	 * {@link MetricEngine}.
+	 *
+	 * @return the cutoff
 	 */
-	public static final boolean STORE_PATHS_AS_FILES = false;
+	public int getRankingCutoff() {
+		return this.rankingCutoff;
+	}
 
+	/**
+	 * The directory of the {@link ResultCache} (or {@code null} iff no cache shall
+	 * be used).
+	 *
+	 * @return the directory or {@code null}
+	 */
+	public File getResultCache() {
+		return this.resultCache;
+	}
+
+	/**
+	 * The maximum size of the {@link ResultCache} in bytes.
+	 *
+	 * @return the maximum size
+	 */
+	public long getResultCacheSize() {
+		return this.resultCacheSize;
+	}
+
+	/**
+	 * Open the {@link ResultCache}.
+	 *
+	 * @return the cache or {@code null} iff {@link #getResultCache()} is
+	 *         {@code null}
+	 * @throws IOException iff the cache cannot be opened
+	 */
+	public ResultCache createResultCache() throws IOException {
+		return this.resultCache == null ? null : ResultCache.open(this.resultCache, this.resultCacheSize);
+	}
+
+	/**
+	 * Create the bootstrap for the confidence intervals of scores.
+	 *
+	 * @return the bootstrap or {@code null} iff {@link #getBootstrapSamples()} is
+	 *         {@code 0}
+	 */
+	public Bootstrap createBootstrap() {
+		return this.bootstrapSamples <= 0 ? null : new Bootstrap(this.bootstrapSamples, this.bootstrapConfidence, BOOTSTRAP_SEED);
+	}
+
+	/**
+	 * Load a configuration from a properties file. Missing values will be taken
+	 * from {@link #DEFAULT}.
+	 *
+	 * @param propertiesFile the properties file
+	 * @return the configuration
+	 * @throws IOException iff the file cannot be read
+	 */
+	public static Configuration load(File propertiesFile) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = new FileReader(propertiesFile)) {
+			properties.load(reader);
+		}
+		return Configuration.DEFAULT.with(properties);
+	}
+
+	/**
+	 * Create a new configuration based on this configuration. All known keys that
+	 * are contained in the properties will override the values of this
+	 * configuration.
+	 *
+	 * @param properties the properties
+	 * @return the new configuration
+	 */
+	public Configuration with(Properties properties) {
+		int pseudo = this.maxHypothesesPerPseudoHyp;
+		int leaf = this.maxHypothesesPerLeaf;
+		Double skip = this.skipIffConfidenceLess;
+		boolean store = this.storePathsAsFiles;
+		PathStorage storage = this.pathStorage;
+		int samples = this.bootstrapSamples;
+		double confidence = this.bootstrapConfidence;
+		int cutoff = this.rankingCutoff;
+		File cache = this.resultCache;
+		long cacheSize = this.resultCacheSize;
+
+		try {
+			if (properties.containsKey(KEY_MAX_HYPOTHESES_PER_PSEUDO_HYP)) {
+				pseudo = Integer.parseInt(properties.getProperty(KEY_MAX_HYPOTHESES_PER_PSEUDO_HYP).trim());
+			}
+			if (properties.containsKey(KEY_MAX_HYPOTHESES_PER_LEAF)) {
+				leaf = Integer.parseInt(properties.getProperty(KEY_MAX_HYPOTHESES_PER_LEAF).trim());
+			}
+			if (properties.containsKey(KEY_SKIP_IFF_CONFIDENCE_LESS)) {
+				String value = properties.getProperty(KEY_SKIP_IFF_CONFIDENCE_LESS).trim();
+				skip = NONE.equalsIgnoreCase(value) ? null : Double.parseDouble(value);
+			}
+			if (properties.containsKey(KEY_BOOTSTRAP_SAMPLES)) {
+				samples = Integer.parseInt(properties.getProperty(KEY_BOOTSTRAP_SAMPLES).trim());
+			}
+			if (properties.containsKey(KEY_BOOTSTRAP_CONFIDENCE)) {
+				confidence = Double.parseDouble(properties.getProperty(KEY_BOOTSTRAP_CONFIDENCE).trim());
+			}
+			if (properties.containsKey(KEY_RANKING_CUTOFF)) {
+				cutoff = Integer.parseInt(properties.getProperty(KEY_RANKING_CUTOFF).trim());
+			}
+			if (properties.containsKey(KEY_RESULT_CACHE_SIZE)) {
+				cacheSize = Long.parseLong(properties.getProperty(KEY_RESULT_CACHE_SIZE).trim()) * MIB;
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number in configuration: " + e.getMessage(), e);
+		}
+		if (properties.containsKey(KEY_STORE_PATHS_AS_FILES)) {
+			store = Boolean.parseBoolean(properties.getProperty(KEY_STORE_PATHS_AS_FILES).trim());
+		}
+		if (properties.containsKey(KEY_PATH_STORAGE)) {
+			storage = PathStorage.valueOf(properties.getProperty(KEY_PATH_STORAGE).trim().toUpperCase());
+		}
+		if (properties.containsKey(KEY_RESULT_CACHE)) {
+			String value = properties.getProperty(KEY_RESULT_CACHE).trim();
+			cache = NONE.equalsIgnoreCase(value) ? null : new File(value);
+		}
+		return new Configuration(pseudo, leaf, skip, store, storage, samples, confidence, cutoff, cache, cacheSize);
+	}
+
+	/**
+	 * Create all configurations for a parameter sweep. Each value may contain a
+	 * comma separated list of values. The result contains all combinations of
+	 * values based on this configuration.
+	 *
+	 * @param values the (comma separated) values by key
+	 * @return all configurations of the sweep
+	 */
+	public List<Configuration> sweep(Map<String, String> values) {
+		List<Configuration> result = new ArrayList<>();
+		result.add(this);
+
+		for (var entry : values.entrySet()) {
+			if (entry.getValue() == null) {
+				continue;
+			}
+			List<Configuration> next = new ArrayList<>();
+			for (Configuration configuration : result) {
+				for (String value : entry.getValue().split(",")) {
+					Properties properties = new Properties();
+					properties.setProperty(entry.getKey(), value);
+					next.add(configuration.with(properties));
+				}
+			}
+			result = next;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return KEY_MAX_HYPOTHESES_PER_PSEUDO_HYP + "=" + this.maxHypothesesPerPseudoHyp + ", " + KEY_MAX_HYPOTHESES_PER_LEAF + "=" + this.maxHypothesesPerLeaf + ", " + KEY_SKIP_IFF_CONFIDENCE_LESS + "="
+				+ (this.skipIffConfidenceLess == null ? NONE : this.skipIffConfidenceLess);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.maxHypothesesPerLeaf, this.maxHypothesesPerPseudoHyp, this.pathStorage, this.skipIffConfidenceLess, this.storePathsAsFiles, this.bootstrapSamples,
+				this.bootstrapConfidence, this.rankingCutoff, this.resultCache, this.resultCacheSize);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || this.getClass() != obj.getClass()) {
+			return false;
+		}
+		Configuration other = (Configuration) obj;
+		return this.maxHypothesesPerLeaf == other.maxHypothesesPerLeaf && this.maxHypothesesPerPseudoHyp == other.maxHypothesesPerPseudoHyp && this.pathStorage == other.pathStorage
+				&& Objects.equals(this.skipIffConfidenceLess, other.skipIffConfidenceLess) && this.storePathsAsFiles == other.storePathsAsFiles && this.bootstrapSamples == other.bootstrapSamples
+				&& Double.compare(this.bootstrapConfidence, other.bootstrapConfidence) == 0 && this.rankingCutoff == other.rankingCutoff
+				&& Objects.equals(this.resultCache, other.resultCache) && this.resultCacheSize == other.resultCacheSize;
+	}
 }
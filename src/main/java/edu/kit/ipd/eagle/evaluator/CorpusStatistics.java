@@ -0,0 +1,204 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.fuchss.tools.tuple.Tuple3;
+
+/**
+ * Generates statistics over a corpus of scenario directories. A scenario
+ * directory contains its exploration files and an evaluation file named
+ * {@code <directory name>.eval.json}. The scenarios are scored in parallel on a
+ * bounded number of threads; only the scores of a scenario are kept, its
+ * exploration data will be released after scoring. The scores are merged per
+ * rating combination, rank and layer into
+ * <ul>
+ * <li>micro averages: precision, recall and F1 of the summed tp, fp and fn</li>
+ * <li>macro averages: mean precision, recall and F1 of the scored paths
+ * (undefined values are skipped)</li>
+ * </ul>
+ */
+public final class CorpusStatistics {
+
+	private final Configuration configuration;
+	private final ResultStore store;
+	private final Map<String, Aggregate> aggregates = new TreeMap<>();
+
+	/**
+	 * Create a new corpus statistics generator.
+	 *
+	 * @param configuration the configuration for scoring
+	 * @param store         the store for the scores of all paths (may be
+	 *                      {@code null})
+	 */
+	public CorpusStatistics(Configuration configuration, ResultStore store) {
+		this.configuration = configuration;
+		this.store = store;
+	}
+
+	/**
+	 * Find all scenario directories (recursively).
+	 *
+	 * @param corpus the root directory of the corpus
+	 * @return all scenario directories
+	 * @throws IOException iff the corpus cannot be traversed
+	 */
+	public static List<File> findScenarios(File corpus) throws IOException {
+		try (Stream<Path> directories = Files.walk(corpus.toPath())) {
+			return directories.map(Path::toFile).filter(File::isDirectory).filter(d -> CorpusStatistics.getEvalFile(d).exists()).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static File getEvalFile(File scenario) {
+		return JsonFiles.resolve(new File(scenario, scenario.getName() + ".eval.json"));
+	}
+
+	/**
+	 * Score all scenarios of a corpus and write the merged statistics to
+	 * {@code <corpus>/<corpus name>.corpus.csv}.
+	 *
+	 * @param corpus  the root directory of the corpus
+	 * @param threads the maximum number of scenarios that will be scored in
+	 *                parallel
+	 * @throws IOException iff the corpus cannot be traversed or the statistics
+	 *                     cannot be written
+	 */
+	public void generateStats(File corpus, int threads) throws IOException {
+		List<File> scenarios = CorpusStatistics.findScenarios(corpus);
+		System.err.println("Scoring " + scenarios.size() + " scenarios ..");
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for (File scenario : scenarios) {
+				tasks.add(executor.submit(() -> this.score(scenario)));
+			}
+			int failed = 0;
+			for (int i = 0; i < tasks.size(); i++) {
+				try {
+					tasks.get(i).get();
+				} catch (ExecutionException e) {
+					// Continue with the other scenarios .. a failed scenario contributes no scores
+					System.err.println("Cannot score scenario " + scenarios.get(i).getName() + ": " + e.getCause());
+					failed++;
+				}
+			}
+			if (failed != 0) {
+				System.err.println(failed + " of " + scenarios.size() + " scenarios failed .. they are missing in the statistics");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (this.store != null) {
+			this.store.flush();
+		}
+		this.storeCSV(new File(corpus, corpus.getName() + ".corpus.csv"));
+	}
+
+	private void score(File scenario) {
+		System.err.println("Scoring scenario " + scenario.getName() + " ..");
+		List<Tuple3<String, Integer, List<Score>>> results;
+		try {
+			results = Statistics.scoreScenario(scenario, CorpusStatistics.getEvalFile(scenario), this.configuration);
+		} catch (IOException e) {
+			System.err.println("Cannot score scenario " + scenario.getName() + ": " + e);
+			return;
+		}
+
+		for (var result : results) {
+			this.merge(result.getFirst(), result.getSecond(), result.getThird());
+		}
+
+		if (this.store != null) {
+			try {
+				for (var result : results) {
+					this.store.append(scenario.getName(), result.getFirst(), result.getSecond(), result.getThird());
+				}
+			} catch (IOException e) {
+				System.err.println("Cannot write to result store: " + e);
+			}
+		}
+	}
+
+	private synchronized void merge(String combination, int rank, List<Score> scores) {
+		for (int i = 0; i < scores.size(); i++) {
+			int layer = i == scores.size() - 1 ? ResultStore.ALL_LAYERS : i;
+			this.aggregates.computeIfAbsent(String.format("%s;%d;%d", combination, rank, layer), k -> new Aggregate(combination, rank, layer)).add(scores.get(i));
+		}
+	}
+
+	private synchronized void storeCSV(File csv) throws IOException {
+		try (FileWriter fw = new FileWriter(csv)) {
+			fw.write("Combination;Rank;Layer;Paths;TP;FP;FN;Micro Precision;Micro Recall;Micro F1;Macro Precision;Macro Recall;Macro F1;\n");
+			for (Aggregate aggregate : this.aggregates.values()) {
+				fw.write(aggregate.toCSV());
+			}
+		}
+	}
+
+	private static final class Aggregate {
+		private final String combination;
+		private final int rank;
+		private final int layer;
+
+		private int paths;
+		private long tp;
+		private long fp;
+		private long fn;
+
+		private final double[] sums = new double[3];
+		private final int[] counts = new int[3];
+
+		private Aggregate(String combination, int rank, int layer) {
+			this.combination = combination;
+			this.rank = rank;
+			this.layer = layer;
+		}
+
+		private void add(Score score) {
+			this.paths++;
+			this.tp += score.tp;
+			this.fp += score.fp;
+			this.fn += score.fn;
+			double[] values = { score.precision, score.recall, score.f1 };
+			for (int i = 0; i < values.length; i++) {
+				if (!Double.isNaN(values[i])) {
+					this.sums[i] += values[i];
+					this.counts[i]++;
+				}
+			}
+		}
+
+		private String toCSV() {
+			double precision = 1.0 * this.tp / (this.tp + this.fp);
+			double recall = 1.0 * this.tp / (this.tp + this.fn);
+			double f1 = 2 * precision * recall / (precision + recall);
+
+			StringBuilder line = new StringBuilder();
+			line.append(this.combination).append(";").append(this.rank).append(";").append(this.layer == ResultStore.ALL_LAYERS ? "All" : String.valueOf(this.layer)).append(";");
+			line.append(this.paths).append(";").append(this.tp).append(";").append(this.fp).append(";").append(this.fn).append(";");
+			line.append(String.format("%.4f;%.4f;%.4f;", precision, recall, f1));
+			for (int i = 0; i < this.sums.length; i++) {
+				line.append(String.format("%.4f;", this.counts[i] == 0 ? Double.NaN : this.sums[i] / this.counts[i]));
+			}
+			return line.append("\n").toString();
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Re-evaluates a new exploration result of a scenario based on the evaluation
+ * of a previous exploration result. The hypotheses of both explorations are
+ * compared per layer (by value), all known classifications of hypotheses that
+ * still exist are carried over to the evaluation of the new exploration and
+ * only hypotheses without classification remain for the user. Afterwards, the
+ * paths whose scores changed can be reported.
+ */
+public final class DeltaEvaluator {
+	private final File oldExplorationFile;
+	private final File oldEvalFile;
+	private final File newExplorationFile;
+	private final File newEvalFile;
+	private final Configuration configuration;
+
+	/**
+	 * Create a new delta evaluator.
+	 *
+	 * @param oldExplorationFile the previous exploration file
+	 * @param oldEvalFile        the evaluation file of the previous exploration
+	 * @param newExplorationFile the new exploration file
+	 * @param newEvalFile        the evaluation file of the new exploration (will
+	 *                           be extended iff it exists)
+	 * @param configuration      the configuration for scoring
+	 */
+	public DeltaEvaluator(File oldExplorationFile, File oldEvalFile, File newExplorationFile, File newEvalFile, Configuration configuration) {
+		this.oldExplorationFile = oldExplorationFile;
+		this.oldEvalFile = oldEvalFile;
+		this.newExplorationFile = newExplorationFile;
+		this.newEvalFile = newEvalFile;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Create the evaluator for the new exploration: carry over the known
+	 * classifications and keep only hypotheses without classification.
+	 *
+	 * @return the evaluator for the new exploration
+	 * @throws IOException iff an exploration or evaluation file cannot be loaded
+	 */
+	public Evaluator prepare() throws IOException {
+		Evaluator previous = new Evaluator(this.oldExplorationFile, this.oldEvalFile);
+		Evaluator evaluator = new Evaluator(this.newExplorationFile, this.newEvalFile);
+		evaluator.setConfiguration(this.configuration);
+		DeltaEvaluator.prepare(previous, evaluator);
+		return evaluator;
+	}
+
+	/**
+	 * Carry over the known classifications of the previous evaluator and keep only
+	 * hypotheses without classification in the new evaluator.
+	 *
+	 * @param previous  the evaluator of the previous exploration
+	 * @param evaluator the evaluator of the new exploration
+	 */
+	static void prepare(Evaluator previous, Evaluator evaluator) {
+		List<Set<String>> oldValues = previous.getHypothesisValues();
+		List<Set<String>> newValues = evaluator.getHypothesisValues();
+		List<Set<String>> classified = DeltaEvaluator.carryOver(previous.getEvaluationData(), evaluator.getEvaluationData(), newValues);
+
+		for (int layer = 0; layer < Math.max(oldValues.size(), newValues.size()); layer++) {
+			Set<String> before = layer < oldValues.size() ? oldValues.get(layer) : Set.of();
+			Set<String> after = layer < newValues.size() ? newValues.get(layer) : Set.of();
+			Set<String> known = layer < classified.size() ? classified.get(layer) : Set.of();
+			long added = after.stream().filter(v -> !before.contains(v)).count();
+			long removed = before.stream().filter(v -> !after.contains(v)).count();
+			long open = after.stream().filter(v -> !known.contains(v)).count();
+			System.err.println(String.format("Layer %d: %d hypotheses, %d new, %d removed, %d need classification", layer, after.size(), added, removed, open));
+		}
+
+		evaluator.retainRemainingHypotheses((layer, h) -> layer >= classified.size() || !classified.get(layer).contains(h.getValue()));
+	}
+
+	/**
+	 * Copy the classifications of all hypotheses that exist in the new
+	 * exploration and are not classified in the target yet.
+	 *
+	 * @return the classified values of the target for each layer
+	 */
+	private static List<Set<String>> carryOver(EvaluationData source, EvaluationData target, List<Set<String>> newValues) {
+		List<Set<String>> classified = new ArrayList<>();
+		for (int layer = 0; layer < target.getNumberOfLayers(); layer++) {
+			Set<String> values = new HashSet<>();
+			for (var hypotheses : target.readClassificationPerLayer().get(layer).values()) {
+				for (HypothesisDTO hypothesis : hypotheses) {
+					values.add(hypothesis.getValue());
+				}
+			}
+			classified.add(values);
+
+			if (layer >= source.getNumberOfLayers() || layer >= newValues.size()) {
+				continue;
+			}
+			Set<String> existing = newValues.get(layer);
+			Map<Classification, List<HypothesisDTO>> carried = new EnumMap<>(Classification.class);
+			Set<String> added = new HashSet<>();
+			for (var entry : source.readClassificationPerLayer().get(layer).entrySet()) {
+				for (HypothesisDTO hypothesis : entry.getValue()) {
+					String value = hypothesis.getValue();
+					if (existing.contains(value) && !values.contains(value)) {
+						carried.computeIfAbsent(entry.getKey(), c -> new ArrayList<>()).add(hypothesis);
+						added.add(value);
+					}
+				}
+			}
+			for (var entry : carried.entrySet()) {
+				target.addClassifications(layer, entry.getKey(), entry.getValue());
+			}
+			values.addAll(added);
+		}
+		return classified;
+	}
+
+	/**
+	 * Score the paths of both explorations and write all paths (identified by
+	 * rating combination and rank) whose scores changed to a CSV file.
+	 *
+	 * @param csv the target file
+	 * @return the number of changed paths
+	 * @throws IOException iff an evaluation file cannot be loaded or the report
+	 *                     cannot be written
+	 */
+	public int reportChanges(File csv) throws IOException {
+		return DeltaEvaluator.reportChanges(Statistics.scoreFile(this.oldExplorationFile, this.oldEvalFile, this.configuration),
+				Statistics.scoreFile(this.newExplorationFile, this.newEvalFile, this.configuration), csv);
+	}
+
+	/**
+	 * Write all paths (identified by rating combination and rank) whose scores
+	 * changed to a CSV file.
+	 *
+	 * @param oldPaths the scored paths of the previous exploration
+	 * @param newPaths the scored paths of the new exploration
+	 * @param csv      the target file
+	 * @return the number of changed paths
+	 * @throws IOException iff the report cannot be written
+	 */
+	static int reportChanges(List<ScoredPath> oldPaths, List<ScoredPath> newPaths, File csv) throws IOException {
+		Map<String, ScoredPath> before = DeltaEvaluator.index(oldPaths);
+		Map<String, ScoredPath> after = DeltaEvaluator.index(newPaths);
+
+		Set<String> keys = new HashSet<>(before.keySet());
+		keys.addAll(after.keySet());
+		List<String> sorted = new ArrayList<>(keys);
+		sorted.sort(null);
+
+		int changed = 0;
+		try (FileWriter fw = new FileWriter(csv)) {
+			fw.write("Combination;Rank;Old TP;Old FP;Old FN;Old F1;New TP;New FP;New FN;New F1;\n");
+			for (String key : sorted) {
+				ScoreMatrix oldScore = before.containsKey(key) ? before.get(key).getScores() : null;
+				ScoreMatrix newScore = after.containsKey(key) ? after.get(key).getScores() : null;
+				if (oldScore != null && newScore != null && oldScore.tp(oldScore.layers()) == newScore.tp(newScore.layers()) && oldScore.fp(oldScore.layers()) == newScore.fp(newScore.layers())
+						&& oldScore.fn(oldScore.layers()) == newScore.fn(newScore.layers())) {
+					continue;
+				}
+				changed++;
+				fw.write(key + ";" + DeltaEvaluator.format(oldScore) + DeltaEvaluator.format(newScore) + "\n");
+			}
+		}
+		return changed;
+	}
+
+	private static Map<String, ScoredPath> index(List<ScoredPath> paths) {
+		Map<String, ScoredPath> result = new LinkedHashMap<>();
+		for (ScoredPath path : paths) {
+			result.put(path.getCombination() + ";" + path.getRank(), path);
+		}
+		return result;
+	}
+
+	private static String format(ScoreMatrix scores) {
+		if (scores == null) {
+			return ";;;;";
+		}
+		int all = scores.layers();
+		return scores.tp(all) + ";" + scores.fp(all) + ";" + scores.fn(all) + ";" + String.format("%.4f;", scores.f1(all));
+	}
+}
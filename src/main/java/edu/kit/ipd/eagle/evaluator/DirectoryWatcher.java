@@ -0,0 +1,126 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Watches a directory for new (exploration) files and handles each of them
+ * exactly once. Files that cannot be handled yet (e.g. because they are still
+ * written) will be retried on their next modification.
+ */
+public final class DirectoryWatcher implements AutoCloseable {
+
+	/**
+	 * Handler for new files.
+	 */
+	@FunctionalInterface
+	public interface FileHandler {
+		/**
+		 * Handle a new file.
+		 *
+		 * @param file the new file
+		 * @return {@code true} iff the file has been handled, {@code false} iff the
+		 *         file shall be retried on its next modification
+		 */
+		boolean handle(File file);
+	}
+
+	private final Path directory;
+	private final Predicate<File> filter;
+	private final FileHandler handler;
+	private final Set<Path> handled = new HashSet<>();
+	private final WatchService watchService;
+
+	/**
+	 * Create a new watcher.
+	 *
+	 * @param directory the directory to watch
+	 * @param filter    the filter for relevant files
+	 * @param handler   the handler for new files
+	 * @throws IOException iff the watch service cannot be created
+	 */
+	public DirectoryWatcher(File directory, Predicate<File> filter, FileHandler handler) throws IOException {
+		this.directory = directory.toPath().toAbsolutePath();
+		this.filter = filter;
+		this.handler = handler;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+	}
+
+	/**
+	 * Mark a file as already handled (e.g. because it has been evaluated before
+	 * watching).
+	 *
+	 * @param file the file
+	 */
+	public void markHandled(File file) {
+		this.handled.add(file.toPath().toAbsolutePath());
+	}
+
+	/**
+	 * Watch the directory until the current thread is interrupted or the watcher
+	 * is closed.
+	 */
+	public void watch() {
+		System.err.println("Watching " + this.directory + " for new files ..");
+		while (!Thread.currentThread().isInterrupted()) {
+			WatchKey key;
+			try {
+				key = this.watchService.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					this.rescan();
+					continue;
+				}
+				this.process(this.directory.resolve((Path) event.context()));
+			}
+
+			if (!key.reset()) {
+				System.err.println("Directory " + this.directory + " is not accessible anymore ..");
+				return;
+			}
+		}
+	}
+
+	private void rescan() {
+		File[] files = this.directory.toFile().listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			this.process(file.toPath().toAbsolutePath());
+		}
+	}
+
+	private void process(Path path) {
+		File file = path.toFile();
+		if (this.handled.contains(path) || !file.isFile() || !this.filter.test(file)) {
+			return;
+		}
+		if (this.handler.handle(file)) {
+			this.handled.add(path);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.watchService.close();
+	}
+}
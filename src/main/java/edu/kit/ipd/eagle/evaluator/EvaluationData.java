@@ -3,6 +3,7 @@ package edu.kit.ipd.eagle.evaluator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -78,7 +79,8 @@ public final class EvaluationData {
 	}
 
 	/**
-	 * Provide classification information on a hypothesis.
+	 * Provide classification information on a hypothesis. A previous
+	 * classification of the hypothesis will be replaced.
 	 *
 	 * @param layer          the layer of the hypothesis
 	 * @param hypothesis     the hypothesis which shall be classified.
@@ -93,7 +95,43 @@ public final class EvaluationData {
 		HypothesisDTO copy = new HypothesisDTO(hypothesis);
 		copy.setConfidence(Double.NaN);
 
-		hyps.add(copy);
+		for (var other : this.classificationPerLayer.get(layer).entrySet()) {
+			if (other.getKey() != classification) {
+				other.getValue().remove(copy);
+			}
+		}
+
+		if (!hyps.contains(copy)) {
+			hyps.add(copy);
+		}
+	}
+
+	/**
+	 * Add classified hypotheses without checking for previous classifications
+	 * (for bulk operations). The hypotheses must not be classified yet.
+	 *
+	 * @param layer          the layer of the hypotheses
+	 * @param classification the classification
+	 * @param hypotheses     the hypotheses (confidence already removed)
+	 */
+	void addClassifications(int layer, Classification classification, Collection<HypothesisDTO> hypotheses) {
+		this.classificationPerLayer.get(layer).computeIfAbsent(classification, c -> new ArrayList<>()).addAll(hypotheses);
+	}
+
+	/**
+	 * Remove the classification of a hypothesis (hypotheses with the same value
+	 * keep their classification).
+	 *
+	 * @param layer      the layer of the hypothesis
+	 * @param hypothesis the hypothesis
+	 */
+	public void removeClassification(int layer, HypothesisDTO hypothesis) {
+		HypothesisDTO copy = new HypothesisDTO(hypothesis);
+		copy.setConfidence(Double.NaN);
+
+		for (var hyps : this.classificationPerLayer.get(layer).values()) {
+			hyps.remove(copy);
+		}
 	}
 
 	/**
@@ -138,6 +176,27 @@ public final class EvaluationData {
 				.countHypotheses(this.classificationPerLayer.get(layer).entrySet().stream().filter(e -> Classification.isGood(e.getKey()) == Boolean.FALSE).flatMap(e -> e.getValue().stream()));
 	}
 
+	/**
+	 * Get the classifications of all layers by value (all hypotheses with the same
+	 * value share one classification). The result is a copy, later changes of
+	 * classifications are not reflected.
+	 *
+	 * @return the classification by value for each layer
+	 */
+	List<Map<String, Classification>> getClassificationsByValue() {
+		List<Map<String, Classification>> result = new ArrayList<>();
+		for (var layer : this.classificationPerLayer) {
+			Map<String, Classification> classifications = new HashMap<>();
+			for (var entry : layer.entrySet()) {
+				for (var hypothesis : entry.getValue()) {
+					classifications.put(hypothesis.getValue(), entry.getKey());
+				}
+			}
+			result.add(classifications);
+		}
+		return result;
+	}
+
 	int getNumberOfLayers() {
 		return this.classificationPerLayer.size();
 	}
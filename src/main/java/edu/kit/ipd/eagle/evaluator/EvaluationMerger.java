@@ -0,0 +1,416 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Merges the evaluation files of multiple annotators into one consolidated
+ * evaluation file. The files are loaded in parallel; each file is folded into
+ * per-layer maps (value -> classification of each annotator) as soon as it has
+ * been read and released afterwards, i.e., at most one file per thread is kept
+ * in memory. Afterwards, the layers are merged in parallel. Hypotheses are
+ * identified by (layer, value) via hashing. The merge creates
+ * <ul>
+ * <li>the consolidated {@link EvaluationData} (majority vote, ties are resolved
+ * by the classification closest to the mean value; hypotheses without a
+ * decision remain unclassified and will be asked again)</li>
+ * <li>{@code <output>.conflicts.csv}: all hypotheses with different
+ * classifications</li>
+ * <li>{@code <output>.agreement.csv}: Fleiss' kappa per layer and Cohen's kappa
+ * per pair of annotators (based on the hypotheses rated by both; empty iff
+ * undefined, i.e., no hypothesis has been rated multiple times or by both)</li>
+ * </ul>
+ */
+public final class EvaluationMerger {
+	private static final Classification[] CLASSIFICATIONS = Classification.values();
+
+	private final List<File> evalFiles;
+	private final int threads;
+
+	/**
+	 * Create a new merger.
+	 *
+	 * @param evalFiles the evaluation files (one per annotator)
+	 * @param threads   the maximum number of threads
+	 */
+	public EvaluationMerger(List<File> evalFiles, int threads) {
+		this.evalFiles = List.copyOf(evalFiles);
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Find all evaluation files ({@code *.eval.json} or {@code *.eval.json.gz}) in
+	 * a file tree.
+	 *
+	 * @param root a directory or an evaluation file
+	 * @return all evaluation files
+	 * @throws IOException iff the directory cannot be traversed
+	 */
+	public static List<File> findEvalFiles(File root) throws IOException {
+		if (!root.isDirectory()) {
+			return List.of(root);
+		}
+		try (Stream<Path> files = Files.walk(root.toPath())) {
+			return files.map(Path::toFile).filter(File::isFile).filter(f -> JsonFiles.getName(f).endsWith(".eval.json")).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Merge the evaluation files.
+	 *
+	 * @param output the consolidated evaluation file
+	 * @throws IOException iff an evaluation file cannot be read or the results
+	 *                     cannot be written
+	 */
+	public void merge(File output) throws IOException {
+		int annotators = this.evalFiles.size();
+		// layer -> value -> item
+		Map<Integer, Map<String, Item>> items = new ConcurrentHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+		try {
+			List<Future<?>> loading = new ArrayList<>();
+			for (int a = 0; a < annotators; a++) {
+				int annotator = a;
+				loading.add(executor.submit(() -> {
+					EvaluationMerger.fold(annotator, annotators, JsonFiles.read(this.evalFiles.get(annotator), EvaluationData.class), items);
+					return null;
+				}));
+			}
+			for (var folded : loading) {
+				folded.get();
+			}
+
+			List<Future<LayerResult>> merging = new ArrayList<>();
+			for (int layer = 0; layer < items.size(); layer++) {
+				int l = layer;
+				merging.add(executor.submit(() -> EvaluationMerger.mergeLayer(l, annotators, items.get(l))));
+			}
+			List<LayerResult> results = new ArrayList<>();
+			for (var result : merging) {
+				results.add(result.get());
+			}
+
+			this.store(output, results);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void fold(int annotator, int annotators, EvaluationData data, Map<Integer, Map<String, Item>> items) {
+		var classificationPerLayer = data.readClassificationPerLayer();
+		for (int layer = 0; layer < classificationPerLayer.size(); layer++) {
+			// Layers without classifications are created as well (see merge)
+			Map<String, Item> itemsOfLayer = items.computeIfAbsent(layer, l -> new HashMap<>());
+			synchronized (itemsOfLayer) {
+				for (var entry : classificationPerLayer.get(layer).entrySet()) {
+					for (HypothesisDTO hypothesis : entry.getValue()) {
+						Item item = itemsOfLayer.computeIfAbsent(hypothesis.getValue(), v -> new Item(annotators));
+						item.classifications[annotator] = entry.getKey();
+						if (!item.hypotheses.contains(hypothesis)) {
+							item.hypotheses.add(hypothesis);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static LayerResult mergeLayer(int layer, int annotators, Map<String, Item> items) {
+		LayerResult result = new LayerResult(layer, annotators);
+		for (var entry : items.entrySet()) {
+			Item item = entry.getValue();
+			result.agreement.add(item.classifications);
+			if (item.isConflict()) {
+				result.conflicts.add(entry.getKey());
+				result.conflicting.add(item.classifications);
+			}
+			Classification consolidated = item.vote();
+			if (consolidated != null) {
+				result.consolidated.computeIfAbsent(consolidated, c -> new ArrayList<>()).addAll(item.hypotheses);
+			}
+		}
+		return result;
+	}
+
+	private void store(File output, List<LayerResult> results) throws IOException {
+		EvaluationData consolidated = new EvaluationData(results.size());
+		for (LayerResult result : results) {
+			for (var entry : result.consolidated.entrySet()) {
+				consolidated.addClassifications(result.layer, entry.getKey(), entry.getValue());
+			}
+		}
+		JsonFiles.write(output, consolidated);
+
+		try (FileWriter fw = new FileWriter(output.getAbsolutePath() + ".conflicts.csv")) {
+			fw.write("Layer;Value;" + this.evalFiles.stream().map(File::getName).collect(Collectors.joining(";")) + ";\n");
+			for (LayerResult result : results) {
+				for (int i = 0; i < result.conflicts.size(); i++) {
+					fw.write(result.layer + ";" + result.conflicts.get(i) + ";");
+					for (Classification classification : result.conflicting.get(i)) {
+						fw.write((classification == null ? "" : classification.toString()) + ";");
+					}
+					fw.write("\n");
+				}
+			}
+		}
+
+		Agreement all = new Agreement(this.evalFiles.size());
+		try (FileWriter fw = new FileWriter(output.getAbsolutePath() + ".agreement.csv")) {
+			fw.write("Layer;Hypotheses;Multiple Ratings;Conflicts;Fleiss Kappa;\n");
+			for (LayerResult result : results) {
+				fw.write(result.layer + ";" + result.agreement.toCSV(result.conflicts.size()));
+				all.add(result.agreement);
+			}
+			fw.write("All;" + all.toCSV(EvaluationMerger.conflicts(results)));
+
+			fw.write("\nAnnotator A;Annotator B;Common Hypotheses;Observed Agreement;Cohen Kappa;\n");
+			for (int a = 0; a < this.evalFiles.size(); a++) {
+				for (int b = a + 1; b < this.evalFiles.size(); b++) {
+					fw.write(this.evalFiles.get(a).getName() + ";" + this.evalFiles.get(b).getName() + ";" + all.toCohenCSV(a, b));
+				}
+			}
+		}
+		double kappa = all.fleissKappa();
+		System.err.println(String.format("Merged %d evaluation files: %d conflicts, Fleiss' kappa %s", this.evalFiles.size(), EvaluationMerger.conflicts(results),
+				Double.isNaN(kappa) ? "undefined" : String.format("%.4f", kappa)));
+	}
+
+	private static int conflicts(List<LayerResult> results) {
+		return results.stream().mapToInt(r -> r.conflicts.size()).sum();
+	}
+
+	/**
+	 * The classifications of one hypothesis (value) by each annotator
+	 * ({@code null} iff not classified by the annotator).
+	 */
+	static final class Item {
+		final Classification[] classifications;
+		private final List<HypothesisDTO> hypotheses = new ArrayList<>(1);
+
+		Item(int annotators) {
+			this.classifications = new Classification[annotators];
+		}
+
+		boolean isConflict() {
+			Classification first = null;
+			for (Classification classification : this.classifications) {
+				if (classification == null) {
+					continue;
+				}
+				if (first == null) {
+					first = classification;
+				} else if (first != classification) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		Classification vote() {
+			int[] votes = new int[CLASSIFICATIONS.length];
+			int sum = 0;
+			int count = 0;
+			for (Classification classification : this.classifications) {
+				if (classification != null) {
+					votes[classification.ordinal()]++;
+					sum += classification.getValue();
+					count++;
+				}
+			}
+			if (count == 0) {
+				return null;
+			}
+
+			int max = 0;
+			for (int vote : votes) {
+				max = Math.max(max, vote);
+			}
+			double mean = 1.0 * sum / count;
+			Classification best = null;
+			double bestDistance = Double.MAX_VALUE;
+			boolean tie = false;
+			for (Classification classification : CLASSIFICATIONS) {
+				if (votes[classification.ordinal()] != max) {
+					continue;
+				}
+				double distance = Math.abs(classification.getValue() - mean);
+				if (distance < bestDistance) {
+					best = classification;
+					bestDistance = distance;
+					tie = false;
+				} else if (distance == bestDistance) {
+					tie = true;
+				}
+			}
+			return tie ? null : best;
+		}
+	}
+
+	private static final class LayerResult {
+		private final int layer;
+		private final Agreement agreement;
+		private final List<String> conflicts = new ArrayList<>();
+		private final List<Classification[]> conflicting = new ArrayList<>();
+		private final Map<Classification, List<HypothesisDTO>> consolidated = new EnumMap<>(Classification.class);
+
+		private LayerResult(int layer, int annotators) {
+			this.layer = layer;
+			this.agreement = new Agreement(annotators);
+		}
+	}
+
+	/**
+	 * Mergeable counts for Fleiss' kappa (with a varying number of ratings per
+	 * hypothesis) and Cohen's kappa per pair of annotators.
+	 */
+	static final class Agreement {
+		private final int annotators;
+
+		private long hypotheses;
+		private long multipleRatings;
+		private double sumAgreement;
+		private long ratings;
+		private final long[] ratingsPerClassification = new long[CLASSIFICATIONS.length];
+
+		// Per pair (a, b): common hypotheses, agreements, and the marginals of a and b
+		private final long[][] common;
+		private final long[][] agreements;
+		private final long[][][] marginalsA;
+		private final long[][][] marginalsB;
+
+		Agreement(int annotators) {
+			this.annotators = annotators;
+			this.common = new long[annotators][annotators];
+			this.agreements = new long[annotators][annotators];
+			this.marginalsA = new long[annotators][annotators][CLASSIFICATIONS.length];
+			this.marginalsB = new long[annotators][annotators][CLASSIFICATIONS.length];
+		}
+
+		void add(Classification[] classifications) {
+			this.hypotheses++;
+			int[] counts = new int[CLASSIFICATIONS.length];
+			int raters = 0;
+			for (Classification classification : classifications) {
+				if (classification != null) {
+					counts[classification.ordinal()]++;
+					raters++;
+				}
+			}
+			if (raters >= 2) {
+				this.multipleRatings++;
+				long squares = 0;
+				for (int k = 0; k < counts.length; k++) {
+					squares += (long) counts[k] * counts[k];
+					this.ratingsPerClassification[k] += counts[k];
+				}
+				this.sumAgreement += 1.0 * (squares - raters) / (raters * (raters - 1L));
+				this.ratings += raters;
+			}
+
+			for (int a = 0; a < this.annotators; a++) {
+				if (classifications[a] == null) {
+					continue;
+				}
+				for (int b = a + 1; b < this.annotators; b++) {
+					if (classifications[b] == null) {
+						continue;
+					}
+					this.common[a][b]++;
+					if (classifications[a] == classifications[b]) {
+						this.agreements[a][b]++;
+					}
+					this.marginalsA[a][b][classifications[a].ordinal()]++;
+					this.marginalsB[a][b][classifications[b].ordinal()]++;
+				}
+			}
+		}
+
+		void add(Agreement other) {
+			this.hypotheses += other.hypotheses;
+			this.multipleRatings += other.multipleRatings;
+			this.sumAgreement += other.sumAgreement;
+			this.ratings += other.ratings;
+			for (int k = 0; k < CLASSIFICATIONS.length; k++) {
+				this.ratingsPerClassification[k] += other.ratingsPerClassification[k];
+			}
+			for (int a = 0; a < this.annotators; a++) {
+				for (int b = a + 1; b < this.annotators; b++) {
+					this.common[a][b] += other.common[a][b];
+					this.agreements[a][b] += other.agreements[a][b];
+					for (int k = 0; k < CLASSIFICATIONS.length; k++) {
+						this.marginalsA[a][b][k] += other.marginalsA[a][b][k];
+						this.marginalsB[a][b][k] += other.marginalsB[a][b][k];
+					}
+				}
+			}
+		}
+
+		double fleissKappa() {
+			if (this.multipleRatings == 0) {
+				// Undefined .. no hypothesis has multiple ratings
+				return Double.NaN;
+			}
+			double observed = this.sumAgreement / this.multipleRatings;
+			double expected = 0;
+			for (long count : this.ratingsPerClassification) {
+				double p = 1.0 * count / this.ratings;
+				expected += p * p;
+			}
+			return Agreement.kappa(observed, expected);
+		}
+
+		double cohenKappa(int a, int b) {
+			long n = this.common[a][b];
+			if (n == 0) {
+				// Undefined .. no hypothesis is rated by both
+				return Double.NaN;
+			}
+			double observed = 1.0 * this.agreements[a][b] / n;
+			double expected = 0;
+			for (int k = 0; k < CLASSIFICATIONS.length; k++) {
+				expected += (1.0 * this.marginalsA[a][b][k] / n) * (1.0 * this.marginalsB[a][b][k] / n);
+			}
+			return Agreement.kappa(observed, expected);
+		}
+
+		private static double kappa(double observed, double expected) {
+			// All ratings in one classification .. the (perfect) agreement is not by chance
+			return expected >= 1 ? 1 : (observed - expected) / (1 - expected);
+		}
+
+		private String toCSV(int conflicts) {
+			return this.hypotheses + ";" + this.multipleRatings + ";" + conflicts + ";" + Agreement.format(this.fleissKappa()) + "\n";
+		}
+
+		private String toCohenCSV(int a, int b) {
+			long n = this.common[a][b];
+			return n + ";" + Agreement.format(n == 0 ? Double.NaN : 1.0 * this.agreements[a][b] / n) + Agreement.format(this.cohenKappa(a, b)) + "\n";
+		}
+
+		private static String format(double value) {
+			return Double.isNaN(value) ? ";" : String.format("%.4f;", value);
+		}
+	}
+}
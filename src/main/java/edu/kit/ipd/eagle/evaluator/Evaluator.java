@@ -3,11 +3,19 @@ package edu.kit.ipd.eagle.evaluator;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 
 import org.fuchss.tools.tuple.Tuple2;
 import org.fuchss.tools.tuple.Tuple3;
@@ -15,9 +23,7 @@ import org.fuchss.tools.tuple.Tuple3;
 import edu.kit.ipd.eagle.port.hypothesis.HypothesisRange;
 import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSet;
 import edu.kit.ipd.eagle.port.hypothesis.IHypothesis;
-import edu.kit.ipd.eagle.port.util.Serialize;
 import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
-import edu.kit.ipd.eagle.port.xplore.dto.ExplorationResultDTO;
 import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
 import edu.kit.ipd.eagle.port.xplore.layer.ILayerEntry;
 
@@ -33,8 +39,21 @@ public class Evaluator {
 
 	private File evaluationResultFile;
 	private EvaluationData evaluationData;
-
-	private Queue<Tuple3<Integer, IHypothesesSet, HypothesisDTO>> remainingHypotheses;
+	private ClassificationDatabase classificationDatabase;
+	private Configuration configuration = Configuration.DEFAULT;
+	// Selected leaf hypotheses by max. hypotheses and hypotheses set (see releaseExploration)
+	private final Map<Integer, Map<IHypothesesSet, List<IHypothesis>>> leafHypothesesCache = new HashMap<>();
+	private final List<ClassificationListener> listeners = new ArrayList<>();
+
+	private Deque<Tuple3<Integer, IHypothesesSet, HypothesisDTO>> remainingHypotheses;
+	// (layer:value) of hypotheses provided by findNextHypotheses that are not classified yet
+	private final Set<String> outstanding = new HashSet<>();
+	// (layer:value) -> hypotheses classified by this evaluator (only they can be undone)
+	private final Map<String, List<HypothesisDTO>> classified = new HashMap<>();
+	// (layer:value) -> classification of the database before this evaluator classified the value
+	private final Map<String, Optional<Classification>> databaseBefore = new HashMap<>();
+	// (layer:value) -> similar hypotheses whose classification has been removed
+	private final Map<String, List<HypothesisDTO>> removedSimilar = new HashMap<>();
 
 	/**
 	 * Create a new Evaluator.
@@ -48,16 +67,35 @@ public class Evaluator {
 	 *                     fails
 	 */
 	public Evaluator(File explorationResultFile, File evalFile) throws IOException {
+		this(Evaluator.getEvalFile(explorationResultFile, evalFile), explorationResultFile == null ? null : JsonFiles.loadExploration(explorationResultFile));
+	}
+
+	private Evaluator(File evalFile, IExplorationResult explorationResult) throws IOException {
+		this.explorationResult = explorationResult;
+		int layers = evalFile.exists() ? -1 : this.findNumOfLayers();
+		this.createEvaluationResult(layers, evalFile);
+		this.loadHypotheses();
+	}
+
+	/**
+	 * Create a new evaluator for an exploration result that has already been
+	 * loaded.
+	 *
+	 * @param explorationResult the exploration result for evaluation (may be
+	 *                          {@code null} iff eval file exists)
+	 * @param evalFile          the evaluation file (may not exist yet)
+	 * @return the evaluator
+	 * @throws IOException iff deserialization of the evaluation file fails
+	 */
+	static Evaluator of(IExplorationResult explorationResult, File evalFile) throws IOException {
+		return new Evaluator(Objects.requireNonNull(evalFile), explorationResult);
+	}
+
+	private static File getEvalFile(File explorationResultFile, File evalFile) {
 		if (explorationResultFile == null && evalFile == null) {
 			throw new IllegalArgumentException("At least evalFile has to be != null");
 		}
-
-		if (explorationResultFile != null) {
-			this.explorationResult = ExplorationResultDTO.load(explorationResultFile);
-		}
-		int layers = evalFile != null && evalFile.exists() ? -1 : this.findNumOfLayers();
-		this.createEvaluationResult(layers, evalFile != null ? evalFile : new File(explorationResultFile.getAbsolutePath() + ".eval.json"));
-		this.loadHypotheses();
+		return evalFile != null ? evalFile : new File(explorationResultFile.getAbsolutePath() + ".eval.json");
 	}
 
 	int findNumOfLayers() {
@@ -83,26 +121,105 @@ public class Evaluator {
 	public Tuple3<Integer, HypothesisDTO, String> findNextHypothesis() {
 
 		while (!this.remainingHypotheses.isEmpty()) {
-			var possibleNextTuple = this.remainingHypotheses.poll();
-			int layer = possibleNextTuple.getFirst();
-			IHypothesesSet hypothesesSet = possibleNextTuple.getSecond();
-			String word = hypothesesSet.getHypothesesRange() == HypothesisRange.ELEMENT ? hypothesesSet.getElementOfHypotheses() : null;
-			HypothesisDTO possibleNext = possibleNextTuple.getThird();
+			var next = this.resolve(this.remainingHypotheses.poll());
+			if (next != null) {
+				return next;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Find the next hypotheses to classify (e.g. to prefetch them for a user
+	 * interface). The returned hypotheses have distinct values per layer (also
+	 * regarding previously returned hypotheses that are not classified yet);
+	 * hypotheses with the same value will be classified automatically (as similar
+	 * hypotheses) after the returned hypotheses have been classified.
+	 *
+	 * @param count the maximum amount of hypotheses
+	 * @return the next hypotheses (see {@link #findNextHypothesis()}); empty iff no
+	 *         further classification is needed
+	 */
+	public List<Tuple3<Integer, HypothesisDTO, String>> findNextHypotheses(int count) {
+		List<Tuple3<Integer, HypothesisDTO, String>> result = new ArrayList<>();
+		List<Tuple3<Integer, IHypothesesSet, HypothesisDTO>> deferred = new ArrayList<>();
 
-			Classification classification = this.evaluationData.getClassification(layer, possibleNext);
-			if (classification != null) {
+		while (result.size() < count && !this.remainingHypotheses.isEmpty()) {
+			var possibleNextTuple = this.remainingHypotheses.poll();
+			if (this.outstanding.contains(Evaluator.getKey(possibleNextTuple.getFirst(), possibleNextTuple.getThird()))) {
+				deferred.add(possibleNextTuple);
 				continue;
 			}
+			var next = this.resolve(possibleNextTuple);
+			if (next != null) {
+				this.outstanding.add(Evaluator.getKey(next.getFirst(), next.getSecond()));
+				result.add(next);
+			}
+		}
 
-			HypothesisDTO similar = this.evaluationData.findSimilar(layer, possibleNext);
-			if (similar != null) {
-				this.evaluationData.setClassification(layer, possibleNext, this.evaluationData.getClassification(layer, similar));
-				continue;
+		for (int i = deferred.size() - 1; i >= 0; i--) {
+			this.remainingHypotheses.addFirst(deferred.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Remove all remaining hypotheses (i.e. hypotheses that have not been
+	 * provided yet) that do not match a filter.
+	 *
+	 * @param filter the filter (layer, hypothesis); {@code true} iff the
+	 *               hypothesis shall remain
+	 */
+	void retainRemainingHypotheses(BiPredicate<Integer, HypothesisDTO> filter) {
+		this.remainingHypotheses.removeIf(h -> !filter.test(h.getFirst(), h.getThird()));
+	}
+
+	/**
+	 * Find the distinct values of all hypotheses of the exploration result.
+	 *
+	 * @return the values for each layer
+	 */
+	List<Set<String>> getHypothesisValues() {
+		List<Tuple3<Integer, IHypothesesSet, HypothesisDTO>> hypotheses = new ArrayList<>();
+		this.loadHypotheses(0, hypotheses, this.explorationResult.getExplorationRoot());
+		List<Set<String>> result = new ArrayList<>();
+		for (var hypothesis : hypotheses) {
+			while (result.size() <= hypothesis.getFirst()) {
+				result.add(new HashSet<>());
 			}
-			return Tuple3.of(layer, possibleNext, word);
+			result.get(hypothesis.getFirst()).add(hypothesis.getThird().getValue());
+		}
+		return result;
+	}
+
+	private static String getKey(int layer, HypothesisDTO hypothesis) {
+		return layer + ":" + hypothesis.getValue();
+	}
+
+	private Tuple3<Integer, HypothesisDTO, String> resolve(Tuple3<Integer, IHypothesesSet, HypothesisDTO> possibleNextTuple) {
+		int layer = possibleNextTuple.getFirst();
+		IHypothesesSet hypothesesSet = possibleNextTuple.getSecond();
+		String word = hypothesesSet.getHypothesesRange() == HypothesisRange.ELEMENT ? hypothesesSet.getElementOfHypotheses() : null;
+		HypothesisDTO possibleNext = possibleNextTuple.getThird();
+
+		Classification classification = this.evaluationData.getClassification(layer, possibleNext);
+		if (classification != null) {
+			return null;
 		}
 
-		return null;
+		HypothesisDTO similar = this.evaluationData.findSimilar(layer, possibleNext);
+		if (similar != null) {
+			this.setClassification(layer, possibleNext, this.evaluationData.getClassification(layer, similar));
+			return null;
+		}
+
+		Classification known = this.classificationDatabase == null ? null : this.classificationDatabase.getClassification(layer, possibleNext);
+		if (known != null) {
+			this.setClassification(layer, possibleNext, known);
+			return null;
+		}
+		return Tuple3.of(layer, possibleNext, word);
 	}
 
 	/**
@@ -113,16 +230,150 @@ public class Evaluator {
 	 * @param classification the classification
 	 */
 	public void setClassification(int layer, HypothesisDTO hypothesis, Classification classification) {
+		String key = Evaluator.getKey(layer, hypothesis);
+		List<HypothesisDTO> classifiedWithValue = this.classified.computeIfAbsent(key, k -> new ArrayList<>());
+
 		this.evaluationData.setClassification(layer, hypothesis, classification);
+		classifiedWithValue.add(hypothesis);
+		if (this.classificationDatabase != null) {
+			this.databaseBefore.computeIfAbsent(key, k -> Optional.ofNullable(this.classificationDatabase.getClassification(layer, hypothesis)));
+			this.classificationDatabase.setClassification(layer, hypothesis, classification);
+		}
+		for (var listener : this.listeners) {
+			listener.classified(layer, hypothesis, classification);
+		}
+
+		this.outstanding.remove(key);
+		for (HypothesisDTO similar : this.removedSimilar.getOrDefault(key, List.of())) {
+			this.evaluationData.setClassification(layer, similar, classification);
+			classifiedWithValue.add(similar);
+		}
+		this.removedSimilar.remove(key);
+	}
+
+	/**
+	 * Remove the classification of a hypothesis (e.g. to undo a decision). The
+	 * hypothesis is treated as provided by {@link #findNextHypotheses(int)} again,
+	 * i.e., the caller has to classify it again. Only classifications made by this
+	 * evaluator are removed: the classification of similar hypotheses (same value)
+	 * that have been classified with the hypothesis is removed as well and will
+	 * be restored with the next classification of the hypothesis; classifications
+	 * of previous evaluations stay untouched and the global database is reset to
+	 * its state before this evaluator classified the value.
+	 *
+	 * @param layer      the layer of the hypothesis
+	 * @param hypothesis the hypothesis
+	 */
+	public void removeClassification(int layer, HypothesisDTO hypothesis) {
+		String key = Evaluator.getKey(layer, hypothesis);
+		List<HypothesisDTO> similar = this.removedSimilar.computeIfAbsent(key, k -> new ArrayList<>());
+		for (HypothesisDTO classifiedWithValue : this.classified.getOrDefault(key, List.of())) {
+			this.evaluationData.removeClassification(layer, classifiedWithValue);
+			if (classifiedWithValue != hypothesis) {
+				similar.add(classifiedWithValue);
+			}
+		}
+		this.classified.remove(key);
+
+		Optional<Classification> before = this.databaseBefore.remove(key);
+		if (this.classificationDatabase != null && before != null) {
+			if (before.isPresent()) {
+				this.classificationDatabase.setClassification(layer, hypothesis, before.get());
+			} else {
+				this.classificationDatabase.removeClassification(layer, hypothesis);
+			}
+		}
+		// Similar hypotheses of previous evaluations keep the value classified
+		HypothesisDTO remaining = this.evaluationData.findSimilar(layer, hypothesis);
+		Classification classification = remaining == null ? null : this.evaluationData.getClassification(layer, remaining);
+		for (var listener : this.listeners) {
+			listener.classified(layer, hypothesis, classification);
+		}
+		this.outstanding.add(key);
 	}
 
 	/**
-	 * Save the current evaluation to the evaluation file.
+	 * Register a listener that will be notified on every classification made via
+	 * {@link #setClassification(int, HypothesisDTO, Classification)}.
+	 *
+	 * @param listener the listener
+	 */
+	public void addClassificationListener(ClassificationListener listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Set the configuration that shall be used for scoring.
+	 *
+	 * @param configuration the configuration
+	 */
+	public void setConfiguration(Configuration configuration) {
+		if (!this.configuration.equals(Objects.requireNonNull(configuration))) {
+			this.leafHypothesesCache.clear();
+		}
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Release all data that has been cached while scoring exploration results
+	 * (e.g. the selected leaf hypotheses). Has to be invoked after an exploration
+	 * result has been scored completely, otherwise the exploration result stays
+	 * reachable from this evaluator.
+	 */
+	void releaseExploration() {
+		this.leafHypothesesCache.clear();
+	}
+
+	/**
+	 * Get the configuration that is used for scoring.
+	 *
+	 * @return the configuration
+	 */
+	public Configuration getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * Get the exploration result that is evaluated.
+	 *
+	 * @return the exploration result ({@code null} iff only the evaluation file has
+	 *         been loaded)
+	 */
+	IExplorationResult getExplorationResult() {
+		return this.explorationResult;
+	}
+
+	/**
+	 * Get the current evaluation data.
+	 *
+	 * @return the evaluation data
+	 */
+	EvaluationData getEvaluationData() {
+		return this.evaluationData;
+	}
+
+	/**
+	 * Use a global classification database. The database will be consulted before
+	 * a hypothesis is provided for (human) classification. All classifications of
+	 * this evaluator will be added to the database.
+	 *
+	 * @param classificationDatabase the database or {@code null} to disable
+	 */
+	public void setClassificationDatabase(ClassificationDatabase classificationDatabase) {
+		this.classificationDatabase = classificationDatabase;
+		if (classificationDatabase != null) {
+			classificationDatabase.addAll(this.evaluationData);
+		}
+	}
+
+	/**
+	 * Save the current evaluation to the evaluation file (compressed iff its name
+	 * ends with {@code .gz}).
 	 *
 	 * @throws IOException iff serialization was not successful
 	 */
 	public void save() throws IOException {
-		Serialize.getObjectMapper(true).writeValue(this.evaluationResultFile, this.evaluationData);
+		JsonFiles.write(this.evaluationResultFile, this.evaluationData);
 	}
 
 	private void loadHypotheses() {
@@ -153,7 +404,7 @@ public class Evaluator {
 		this.evaluationResultFile = evalFile;
 
 		if (this.evaluationResultFile.exists()) {
-			this.evaluationData = Serialize.getObjectMapper(true).readValue(this.evaluationResultFile, EvaluationData.class);
+			this.evaluationData = JsonFiles.read(this.evaluationResultFile, EvaluationData.class);
 			return;
 		}
 
@@ -199,79 +450,201 @@ public class Evaluator {
 	 *         in the exploration
 	 */
 	public List<Tuple2<Integer, Integer>> getHitsWithBad(IExplorationResult exploration, boolean isPseudoHypothesis) {
-		List<Tuple2<Integer, IHypothesis>> hits = new ArrayList<>();
-		List<Tuple2<Integer, IHypothesis>> bad = new ArrayList<>();
-		this.getHitsWithBad(0, hits, bad, exploration.getExplorationRoot(), isPseudoHypothesis);
-
-		int maxLayer = Stream.concat(hits.stream(), bad.stream()).mapToInt(Tuple2::getFirst).max().getAsInt();
+		return this.getHitsWithBad(PathView.of(exploration.getId(), exploration), isPseudoHypothesis);
+	}
 
+	/**
+	 * Count the correct and incorrect classified hypothesis in an exploration
+	 * result or path. (Distinct by value)
+	 *
+	 * @param view               the view on the exploration result or path
+	 * @param isPseudoHypothesis indicator for pseudo hypotheses
+	 * @return (correct classified count, incorrect classified count) for each layer
+	 *         in the exploration
+	 */
+	public List<Tuple2<Integer, Integer>> getHitsWithBad(PathView view, boolean isPseudoHypothesis) {
+		ScoreMatrix scores = this.score(view, isPseudoHypothesis, new int[0]);
 		List<Tuple2<Integer, Integer>> result = new ArrayList<>();
-		for (int i = 0; i <= maxLayer; i++) {
-			final int l = i;
-			List<IHypothesis> layerHits = hits.stream().filter(h -> h.getFirst() == l).map(Tuple2::getSecond).collect(Collectors.toList());
-			List<IHypothesis> layerBadHits = bad.stream().filter(h -> h.getFirst() == l).map(Tuple2::getSecond).collect(Collectors.toList());
+		for (int i = 0; i < scores.layers(); i++) {
+			result.add(Tuple2.of(scores.tp(i), scores.fp(i)));
+		}
+		return result;
+	}
 
-			result.add(Tuple2.of(EvaluationData.countHypotheses(layerHits), EvaluationData.countHypotheses(layerBadHits)));
+	/**
+	 * Score an exploration result or path. The hits and bad hypotheses (distinct
+	 * by value) are counted in one traversal (see
+	 * {@link #getHitsWithBad(PathView, boolean)}).
+	 *
+	 * @param view                    the view on the exploration result or path
+	 * @param isPseudoHypothesis      indicator for pseudo hypotheses
+	 * @param allPossibleHitsPerLayer the number of good hypotheses of each layer
+	 *                                (missing layers count as 0)
+	 * @return the scores of the view
+	 */
+	ScoreMatrix score(PathView view, boolean isPseudoHypothesis, int[] allPossibleHitsPerLayer) {
+		return this.score(view, isPseudoHypothesis, allPossibleHitsPerLayer, null);
+	}
+
+	/**
+	 * Score an exploration result or path (see
+	 * {@link #score(PathView, boolean, int[])}) and collect the values of all
+	 * hypotheses that are relevant for the score (regardless of their
+	 * classification).
+	 *
+	 * @param view                    the view on the exploration result or path
+	 * @param isPseudoHypothesis      indicator for pseudo hypotheses
+	 * @param allPossibleHitsPerLayer the number of good hypotheses of each layer
+	 *                                (missing layers count as 0)
+	 * @param values                  the values of each layer that will be
+	 *                                extended (may be {@code null})
+	 * @return the scores of the view
+	 */
+	ScoreMatrix score(PathView view, boolean isPseudoHypothesis, int[] allPossibleHitsPerLayer, List<Set<String>> values) {
+		List<Set<String>> hits = new ArrayList<>();
+		List<Set<String>> bad = new ArrayList<>();
+		this.collectScoredHypotheses(view, isPseudoHypothesis, (l, h) -> {
+			if (values != null) {
+				while (values.size() <= l) {
+					values.add(new HashSet<>());
+				}
+				values.get(l).add(h.getValue());
+			}
+			Boolean good = Classification.isGood(this.evaluationData.getClassification(l, (HypothesisDTO) h));
+			if (good == null) {
+				return;
+			}
+			while (hits.size() <= l) {
+				hits.add(new HashSet<>());
+				bad.add(new HashSet<>());
+			}
+			(good ? hits : bad).get(l).add(h.getValue());
+		});
+
+		// Only layers up to the last layer with classified hypotheses are scored
+		int layers = hits.size();
+		while (layers > 0 && hits.get(layers - 1).isEmpty() && bad.get(layers - 1).isEmpty()) {
+			layers--;
+		}
+		int[] tp = new int[layers];
+		int[] fp = new int[layers];
+		for (int i = 0; i < layers; i++) {
+			tp[i] = hits.get(i).size();
+			fp[i] = bad.get(i).size();
 		}
+		return new ScoreMatrix(tp, fp, Arrays.copyOf(allPossibleHitsPerLayer, Math.max(layers, allPossibleHitsPerLayer.length)));
+	}
 
+	/**
+	 * Find all hypotheses that are relevant for scoring an exploration result or
+	 * path (regardless of their classification).
+	 *
+	 * @param view               the view on the exploration result or path
+	 * @param isPseudoHypothesis indicator for pseudo hypotheses
+	 * @return the distinct values of the relevant hypotheses for each layer
+	 */
+	List<Set<String>> getScoredHypotheses(PathView view, boolean isPseudoHypothesis) {
+		List<Set<String>> result = new ArrayList<>();
+		this.collectScoredHypotheses(view, isPseudoHypothesis, (l, h) -> {
+			while (result.size() <= l) {
+				result.add(new HashSet<>());
+			}
+			result.get(l).add(h.getValue());
+		});
 		return result;
 	}
 
-	private void getHitsWithBad(int layer, List<Tuple2<Integer, IHypothesis>> hits, List<Tuple2<Integer, IHypothesis>> bad, ILayerEntry step, boolean isPseudoHypothesis) {
+	private void collectScoredHypotheses(PathView view, boolean isPseudoHypothesis, BiConsumer<Integer, IHypothesis> consumer) {
+		this.collectScoredHypotheses(view, isPseudoHypothesis, consumer, null);
+	}
+
+	/**
+	 * Traverse an exploration result or path once and provide all hypotheses that
+	 * are relevant for scoring (see {@link #getHitsWithBad(PathView, boolean)}) as
+	 * well as all hypotheses sets of the visited layer entries.
+	 *
+	 * @param view               the view on the exploration result or path
+	 * @param isPseudoHypothesis indicator for pseudo hypotheses
+	 * @param consumer           consumer for (layer, scored hypothesis)
+	 * @param setConsumer        consumer for (layer, hypotheses set) (may be
+	 *                           {@code null})
+	 */
+	void collectScoredHypotheses(PathView view, boolean isPseudoHypothesis, BiConsumer<Integer, IHypothesis> consumer, BiConsumer<Integer, IHypothesesSet> setConsumer) {
+		var entries = view.getLayerEntries();
+		if (entries == null) {
+			this.collectScoredHypotheses(0, view.getExplorationRoot(), isPseudoHypothesis, consumer, setConsumer);
+			return;
+		}
+
+		// A path is a chain of layer entries: the last entry is the leaf
+		for (int layer = 0; layer < entries.size(); layer++) {
+			this.collectScoredHypotheses(layer, entries.get(layer), layer == entries.size() - 1, isPseudoHypothesis, consumer, setConsumer);
+		}
+	}
+
+	private void collectScoredHypotheses(int layer, ILayerEntry step, boolean isPseudoHypothesis, BiConsumer<Integer, IHypothesis> consumer, BiConsumer<Integer, IHypothesesSet> setConsumer) {
+		// Leaf == no child or no selections in (any) child (pseudo hypotheses)
+		this.collectScoredHypotheses(layer, step, step.getChildren().isEmpty(), isPseudoHypothesis, consumer, setConsumer);
+
+		for (var child : step.getChildren()) {
+			this.collectScoredHypotheses(layer + 1, child, isPseudoHypothesis, consumer, setConsumer);
+		}
+	}
+
+	private void collectScoredHypotheses(int layer, ILayerEntry step, boolean isLeaf, boolean isPseudoHypothesis, BiConsumer<Integer, IHypothesis> consumer,
+			BiConsumer<Integer, IHypothesesSet> setConsumer) {
+		if (setConsumer != null && step.getHypotheses() != null) {
+			for (var hs : step.getHypotheses()) {
+				setConsumer.accept(layer, hs);
+			}
+		}
+
 		// Look for selected in path ..
 
 		var selections = step.getSelectionsFromBefore();
 		if (selections != null && !isPseudoHypothesis) {
 			for (var sel : selections) {
 				for (var h : sel.getSelectedHypotheses()) {
-					if (Classification.isGood(this.evaluationData.getClassification(layer - 1, (HypothesisDTO) h)) == Boolean.TRUE) {
-						hits.add(Tuple2.of(layer - 1, h));
-					} else if (Classification.isGood(this.evaluationData.getClassification(layer - 1, (HypothesisDTO) h)) == Boolean.FALSE) {
-						bad.add(Tuple2.of(layer - 1, h));
-					}
+					consumer.accept(layer - 1, h);
 				}
 			}
 		}
 
-		// Leaf == no child or no selections in (any) child (pseudo hypotheses)
-		boolean isLeaf = step.getChildren().isEmpty();
 		if (isLeaf || isPseudoHypothesis) {
 			// if leaf use generated hypotheses instead of selections ..
-			for (var h : this.getHypothesesForLeaf(step, isPseudoHypothesis ? Configuration.MAX_HYPOTHESES_PER_PSEUDO_HYP : Configuration.MAX_HYPOTHESES_PER_LEAF)) {
-				if (Classification.isGood(this.evaluationData.getClassification(layer, (HypothesisDTO) h)) == Boolean.TRUE) {
-					hits.add(Tuple2.of(layer, h));
-				} else if (Classification.isGood(this.evaluationData.getClassification(layer, (HypothesisDTO) h)) == Boolean.FALSE) {
-					bad.add(Tuple2.of(layer, h));
-				}
+			for (var h : this.getHypothesesForLeaf(step, isPseudoHypothesis ? this.configuration.getMaxHypothesesPerPseudoHyp() : this.configuration.getMaxHypothesesPerLeaf())) {
+				consumer.accept(layer, h);
 			}
 		}
-
-		for (var child : step.getChildren()) {
-			this.getHitsWithBad(layer + 1, hits, bad, child, isPseudoHypothesis);
-		}
-
 	}
 
 	private List<IHypothesis> getHypothesesForLeaf(ILayerEntry step, int max) {
 		List<IHypothesis> result = new ArrayList<>();
 		for (var hs : step.getHypotheses()) {
 			int maxHypotheses = hs.isOnlyOneHypothesisValid() ? 1 : max;
+			var selectedPerSet = this.leafHypothesesCache.computeIfAbsent(maxHypotheses, m -> new IdentityHashMap<>());
+			result.addAll(selectedPerSet.computeIfAbsent(hs, s -> this.selectHypotheses(s, maxHypotheses)));
+		}
 
-			List<IHypothesis> orderdHypothesis = hs.getSortedHypotheses();
-			double score = orderdHypothesis.get(0).getConfidence();
+		return result;
+	}
 
-			// Add Hypotheses as long as maxHypotheses not reached (or in same group of
-			// confidence as before)
-			for (int i = 0; i < orderdHypothesis.size() && (i < maxHypotheses || this.equalScores(score, orderdHypothesis.get(i).getConfidence())); i++) {
-				var h = orderdHypothesis.get(i);
-				score = h.getConfidence();
-				if (Configuration.SKIP_IFF_CONFIDENCE_LESS != null && !Double.isNaN(score) && score <= Configuration.SKIP_IFF_CONFIDENCE_LESS) {
-					break;
-				}
-				result.add(h);
+	private List<IHypothesis> selectHypotheses(IHypothesesSet hs, int maxHypotheses) {
+		List<IHypothesis> result = new ArrayList<>();
+		List<IHypothesis> orderdHypothesis = hs.getSortedHypotheses();
+		double score = orderdHypothesis.get(0).getConfidence();
+		Double skip = this.configuration.getSkipIffConfidenceLess();
+
+		// Add Hypotheses as long as maxHypotheses not reached (or in same group of
+		// confidence as before)
+		for (int i = 0; i < orderdHypothesis.size() && (i < maxHypotheses || this.equalScores(score, orderdHypothesis.get(i).getConfidence())); i++) {
+			var h = orderdHypothesis.get(i);
+			score = h.getConfidence();
+			if (skip != null && !Double.isNaN(score) && score <= skip) {
+				break;
 			}
+			result.add(h);
 		}
-
 		return result;
 	}
 
@@ -0,0 +1,209 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Keeps the scores of a set of exploration results up to date while
+ * classifications change. In contrast to {@link Statistics} the exploration
+ * results will only be traversed once. Afterwards, a changed classification
+ * only updates the hit/bad counts of the paths that contain the classified
+ * value (see {@link #classified(int, HypothesisDTO, Classification)}).
+ * <p>
+ * The total score of a path only depends on its total hits and bad hypotheses
+ * (and the number of good hypotheses of all layers). Thus, the paths are
+ * grouped by their totals and the best path (see {@link #getBest()}) is found
+ * among the groups without sorting all paths.
+ */
+public final class IncrementalStatistics implements ClassificationListener {
+
+	private final List<Map<String, Classification>> classificationPerLayer = new ArrayList<>();
+	private final List<Map<String, List<PathState>>> pathsPerLayerAndValue = new ArrayList<>();
+	private final List<PathState> paths = new ArrayList<>();
+	// (total hits, total bad) -> paths with these totals (by name)
+	private final Map<Long, NavigableSet<PathState>> pathsPerTotal = new HashMap<>();
+	private int[] goodPerLayer;
+	private int good;
+
+	/**
+	 * Create the incremental statistics and register them at the evaluator.
+	 *
+	 * @param evaluator the evaluator that provides the classifications
+	 * @param toScore   the exploration results (or paths) that shall be scored
+	 */
+	public IncrementalStatistics(Evaluator evaluator, List<PathView> toScore) {
+		var data = evaluator.getEvaluationData().readClassificationPerLayer();
+		this.goodPerLayer = new int[data.size()];
+		for (int layer = 0; layer < data.size(); layer++) {
+			Map<String, Classification> classifications = this.getLayer(this.classificationPerLayer, layer);
+			for (var entry : data.get(layer).entrySet()) {
+				for (var hypothesis : entry.getValue()) {
+					classifications.put(hypothesis.getValue(), entry.getKey());
+				}
+			}
+			for (var classification : classifications.values()) {
+				if (Classification.isGood(classification) == Boolean.TRUE) {
+					this.goodPerLayer[layer]++;
+					this.good++;
+				}
+			}
+		}
+
+		for (var input : toScore) {
+			var scored = evaluator.getScoredHypotheses(input, input.getName().contains("no-hyp"));
+			PathState path = new PathState(input, scored.size());
+			for (int layer = 0; layer < scored.size(); layer++) {
+				this.addToPath(path, layer, scored.get(layer));
+			}
+			this.paths.add(path);
+			this.addToTotal(path);
+		}
+
+		evaluator.addClassificationListener(this);
+	}
+
+	private void addToPath(PathState path, int layer, Set<String> values) {
+		Map<String, List<PathState>> index = this.getLayer(this.pathsPerLayerAndValue, layer);
+		Map<String, Classification> classifications = this.getLayer(this.classificationPerLayer, layer);
+		for (String value : values) {
+			index.computeIfAbsent(value, v -> new ArrayList<>()).add(path);
+			path.add(layer, Classification.isGood(classifications.get(value)), 1);
+		}
+	}
+
+	private <E> Map<String, E> getLayer(List<Map<String, E>> perLayer, int layer) {
+		while (perLayer.size() <= layer) {
+			perLayer.add(new HashMap<>());
+		}
+		return perLayer.get(layer);
+	}
+
+	@Override
+	public void classified(int layer, HypothesisDTO hypothesis, Classification classification) {
+		Classification old = this.getLayer(this.classificationPerLayer, layer).put(hypothesis.getValue(), classification);
+		Boolean wasGood = Classification.isGood(old);
+		Boolean isGood = Classification.isGood(classification);
+		if (wasGood == isGood) {
+			return;
+		}
+
+		if (layer >= this.goodPerLayer.length) {
+			this.goodPerLayer = Arrays.copyOf(this.goodPerLayer, layer + 1);
+		}
+		if (wasGood == Boolean.TRUE) {
+			this.goodPerLayer[layer]--;
+			this.good--;
+		} else if (isGood == Boolean.TRUE) {
+			this.goodPerLayer[layer]++;
+			this.good++;
+		}
+
+		var affected = this.getLayer(this.pathsPerLayerAndValue, layer).getOrDefault(hypothesis.getValue(), List.of());
+		for (PathState path : affected) {
+			this.removeFromTotal(path);
+			path.add(layer, wasGood, -1);
+			path.add(layer, isGood, 1);
+			this.addToTotal(path);
+		}
+	}
+
+	private void addToTotal(PathState path) {
+		this.pathsPerTotal.computeIfAbsent(PathState.getTotal(path.hitsTotal, path.badTotal), t -> new TreeSet<>(PathState.BY_NAME)).add(path);
+	}
+
+	private void removeFromTotal(PathState path) {
+		Long total = PathState.getTotal(path.hitsTotal, path.badTotal);
+		NavigableSet<PathState> withTotal = this.pathsPerTotal.get(total);
+		withTotal.remove(path);
+		if (withTotal.isEmpty()) {
+			this.pathsPerTotal.remove(total);
+		}
+	}
+
+	/**
+	 * Get the current best exploration result (the first one of
+	 * {@link #getScores()}).
+	 *
+	 * @return the best exploration result ({@code null} iff there is none)
+	 */
+	ScoredPath getBest() {
+		PathState best = null;
+		Score bestScore = null;
+		for (NavigableSet<PathState> withTotal : this.pathsPerTotal.values()) {
+			// Same as Statistics.sortByScore: equal scores are ordered by name (descending)
+			PathState candidate = withTotal.last();
+			Score score = new Score(candidate.hitsTotal, candidate.badTotal, this.good - candidate.hitsTotal);
+			int compare = bestScore == null ? 1 : score.compareTo(bestScore);
+			if (compare > 0 || (compare == 0 && PathState.BY_NAME.compare(candidate, best) > 0)) {
+				best = candidate;
+				bestScore = score;
+			}
+		}
+		return best == null ? null : this.getScores(best);
+	}
+
+	/**
+	 * Get the current scores of all exploration results. The order is the same as
+	 * the one of {@link Statistics} (best total score first).
+	 *
+	 * @return the scored exploration results
+	 */
+	List<ScoredPath> getScores() {
+		List<ScoredPath> scored = new ArrayList<>();
+		for (PathState path : this.paths) {
+			scored.add(this.getScores(path));
+		}
+		return Statistics.sortByScore(scored);
+	}
+
+	private ScoredPath getScores(PathState path) {
+		// Only layers up to the last layer with classified hypotheses are scored
+		int layers = path.hits.length;
+		while (layers > 0 && path.hits[layers - 1] + path.bad[layers - 1] == 0) {
+			layers--;
+		}
+
+		int[] possibleHits = Arrays.copyOf(this.goodPerLayer, Math.max(layers, this.goodPerLayer.length));
+		return new ScoredPath(path.view, new ScoreMatrix(Arrays.copyOf(path.hits, layers), Arrays.copyOf(path.bad, layers), possibleHits));
+	}
+
+	private static final class PathState {
+		// Names of views are unique (file names)
+		private static final Comparator<PathState> BY_NAME = Comparator.comparing(p -> p.view.getName());
+
+		private final PathView view;
+		private final int[] hits;
+		private final int[] bad;
+		private int hitsTotal;
+		private int badTotal;
+
+		private PathState(PathView view, int layers) {
+			this.view = view;
+			this.hits = new int[layers];
+			this.bad = new int[layers];
+		}
+
+		private void add(int layer, Boolean good, int delta) {
+			if (good == Boolean.TRUE) {
+				this.hits[layer] += delta;
+				this.hitsTotal += delta;
+			} else if (good == Boolean.FALSE) {
+				this.bad[layer] += delta;
+				this.badTotal += delta;
+			}
+		}
+
+		private static Long getTotal(int hits, int bad) {
+			return ((long) hits << 32) | bad;
+		}
+	}
+}
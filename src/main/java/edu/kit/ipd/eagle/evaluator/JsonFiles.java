@@ -0,0 +1,159 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import edu.kit.ipd.eagle.port.util.Serialize;
+import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
+import edu.kit.ipd.eagle.port.xplore.dto.ExplorationResultDTO;
+
+/**
+ * Reads and writes JSON files (exploration and evaluation files) that may be
+ * compressed. Files whose name ends with {@code .gz} are (de-)compressed while
+ * streaming; the uncompressed data is never stored. Only gzip is supported
+ * (it is part of the JDK, other formats would need another dependency).
+ */
+final class JsonFiles {
+	/**
+	 * The suffix of compressed files.
+	 */
+	static final String GZIP_SUFFIX = ".gz";
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private JsonFiles() {
+		throw new IllegalAccessError();
+	}
+
+	/**
+	 * Check whether a file is compressed (by its name).
+	 *
+	 * @param file the file
+	 * @return {@code true} iff compressed
+	 */
+	static boolean isCompressed(File file) {
+		return file.getName().endsWith(GZIP_SUFFIX);
+	}
+
+	/**
+	 * Get the name of a file without the compression suffix.
+	 *
+	 * @param file the file
+	 * @return the name of the uncompressed file
+	 */
+	static String getName(File file) {
+		return JsonFiles.stripCompression(file.getName());
+	}
+
+	/**
+	 * Remove the compression suffix from a file name.
+	 *
+	 * @param name the file name
+	 * @return the name without {@code .gz}
+	 */
+	static String stripCompression(String name) {
+		return name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+	}
+
+	/**
+	 * Check whether a file is a (possibly compressed) JSON file.
+	 *
+	 * @param file the file
+	 * @return {@code true} iff the file is a JSON file
+	 */
+	static boolean isJson(File file) {
+		return file.isFile() && JsonFiles.getName(file).endsWith(".json");
+	}
+
+	/**
+	 * Find the existing variant of a file: the compressed variant is used iff
+	 * only it exists.
+	 *
+	 * @param file the (uncompressed) file
+	 * @return the file or its compressed variant
+	 */
+	static File resolve(File file) {
+		File compressed = new File(file.getPath() + GZIP_SUFFIX);
+		return !file.exists() && compressed.exists() ? compressed : file;
+	}
+
+	/**
+	 * Open a file for reading (decompressing iff needed).
+	 *
+	 * @param file the file
+	 * @return the stream of the uncompressed data
+	 * @throws IOException iff the file cannot be opened
+	 */
+	static InputStream open(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		if (!JsonFiles.isCompressed(file)) {
+			return in;
+		}
+		try {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Create a file for writing (compressing iff named {@code *.gz}).
+	 *
+	 * @param file the file
+	 * @return the stream for the uncompressed data
+	 * @throws IOException iff the file cannot be created
+	 */
+	static OutputStream create(File file) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+		return JsonFiles.isCompressed(file) ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+	}
+
+	/**
+	 * Deserialize a (possibly compressed) JSON file.
+	 *
+	 * @param <T>  the type of the data
+	 * @param file the file
+	 * @param type the class of the data
+	 * @return the data
+	 * @throws IOException iff the file cannot be read
+	 */
+	static <T> T read(File file, Class<T> type) throws IOException {
+		try (InputStream in = JsonFiles.open(file)) {
+			return Serialize.getObjectMapper(true).readValue(in, type);
+		}
+	}
+
+	/**
+	 * Serialize data to a JSON file (compressed iff named {@code *.gz}).
+	 *
+	 * @param file the file
+	 * @param data the data
+	 * @throws IOException iff the file cannot be written
+	 */
+	static void write(File file, Object data) throws IOException {
+		try (OutputStream out = JsonFiles.create(file)) {
+			Serialize.getObjectMapper(true).writeValue(out, data);
+		}
+	}
+
+	/**
+	 * Load a (possibly compressed) exploration result. Both variants are
+	 * deserialized from the (decompressed) stream by the same mapper.
+	 *
+	 * @param file the exploration file
+	 * @return the exploration result
+	 * @throws IOException iff the file cannot be loaded
+	 */
+	static IExplorationResult loadExploration(File file) throws IOException {
+		return JsonFiles.read(file, ExplorationResultDTO.class);
+	}
+}
@@ -2,7 +2,14 @@ package edu.kit.ipd.eagle.evaluator;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
@@ -23,6 +30,15 @@ import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
 public final class Main {
 	private static boolean useGUI = true;
 
+	private static File classificationDatabaseFile;
+	private static ClassificationDatabase classificationDatabase;
+	private static Configuration configuration = Configuration.DEFAULT;
+	private static AnnotationServer annotationServer;
+	private static TerminalAnnotator terminalAnnotator;
+	private static Double sampleMargin;
+	private static boolean compress;
+	private static boolean liveStats;
+
 	private Main() {
 		throw new IllegalAccessError();
 	}
@@ -30,23 +46,159 @@ public final class Main {
 	/**
 	 * The main method of the agent analysis evaluator.
 	 *
-	 * @param args you may provide one argument: the exploration result input file
+	 * @param args you may provide one argument: the exploration result input file.
+	 *             Additionally, the following options are supported:
+	 *             {@code --global-db=<file>} (a {@link ClassificationDatabase}
+	 *             shared by multiple evaluations), {@code --watch} (keep
+	 *             watching the directory for new exploration files),
+	 *             {@code --stats} (generate statistics), {@code --metrics}
+	 *             (generate extended metrics), {@code --store=<dir>} (append
+	 *             statistics to a {@link ResultStore}),
+	 *             {@code --query=<dir>} (query a {@link ResultStore} for the
+	 *             paths of rank {@code --query-rank=<rank>}, default 0),
+	 *             {@code --merge=<output file>} (merge all evaluation files of
+	 *             the inputs, see {@link EvaluationMerger}),
+	 *             {@code --corpus[=<threads>]} (generate statistics for all
+	 *             scenario directories of the input directory, see
+	 *             {@link CorpusStatistics}),
+	 *             {@code --web[=<port>]} (classify via a web page instead of
+	 *             dialogs, bound to {@code --web-host=<host>} or localhost),
+	 *             {@code --delta=<old exploration file>} (re-evaluate the input
+	 *             exploration file based on the evaluation of an old exploration
+	 *             ({@code --delta-eval=<file>}), see {@link DeltaEvaluator}),
+	 *             {@code --sample[=<margin>]} (classify only a stratified
+	 *             sample, see {@link StratifiedSampler}),
+	 *             {@code --fast-tui[=<lookahead>]} (classify with single
+	 *             keystrokes in the terminal, see {@link TerminalAnnotator}),
+	 *             {@code --live-stats} (print the current scores after each
+	 *             classification, see {@link IncrementalStatistics}),
+	 *             {@code --compress} (write new evaluation files compressed;
+	 *             compressed exploration and evaluation files ({@code .gz}) are
+	 *             always supported),
+	 *             {@code --sweep}
+	 *             (compare multiple configurations),
+	 *             {@code --config=<properties file>} and all keys of
+	 *             {@link Configuration} (e.g.
+	 *             {@code --max-hypotheses-per-leaf=2}; comma separated lists of
+	 *             values for {@code --sweep}, single values apply to all
+	 *             configurations of the sweep)
 	 */
 	public static void main(String[] args) {
 		Scanner scan = new Scanner(System.in);
 		File explorationFile;
 
-		if (args.length == 0) {
+		List<String> inputs = new ArrayList<>();
+		Map<String, String> options = new HashMap<>();
+		Main.parseArguments(args, inputs, options);
+
+		if (options.get("query") != null) {
+			Main.query(new File(options.get("query")), options.get("query-rank"));
+			scan.close();
+			return;
+		}
+
+		if (options.get("merge") != null) {
+			Main.merge(inputs, new File(options.get("merge")));
+			scan.close();
+			return;
+		}
+
+		if (inputs.isEmpty()) {
 			System.out.println("INFO: You can also provide the file for Evaluation via args[0] ..");
 			System.out.println("What is the input file?\n");
 			explorationFile = new File(scan.nextLine());
 		} else {
-			explorationFile = new File(args[0]);
+			explorationFile = new File(inputs.get(0));
 		}
 
-		if (explorationFile.isDirectory()) {
-			File evalFile = new File(explorationFile.getAbsolutePath() + File.separator + explorationFile.getName() + ".eval.json");
-			File[] explorationFiles = explorationFile.listFiles(f -> f.getName().endsWith(".json") && !(f.getName().endsWith(".eval.json") || f.getName().endsWith("-no-hyp.json")));
+		if (options.get("global-db") != null) {
+			Main.classificationDatabaseFile = new File(options.get("global-db"));
+			try {
+				Main.classificationDatabase = ClassificationDatabase.load(Main.classificationDatabaseFile);
+			} catch (IOException e) {
+				System.err.println("Cannot load global classification database: " + e);
+				System.exit(1);
+			}
+		}
+
+		// Single values override the configuration, lists of values are swept
+		Properties overrides = new Properties();
+		Map<String, String> sweepValues = new HashMap<>();
+		for (String key : Configuration.KEYS) {
+			String value = options.get(key);
+			if (value != null && options.containsKey("sweep") && value.contains(",")) {
+				sweepValues.put(key, value);
+			} else if (value != null) {
+				overrides.setProperty(key, value);
+			}
+		}
+		List<Configuration> sweep = List.of();
+		try {
+			if (options.get("config") != null) {
+				Main.configuration = Configuration.load(new File(options.get("config")));
+			}
+			Main.configuration = Main.configuration.with(overrides);
+			if (options.containsKey("sweep")) {
+				sweep = Main.configuration.sweep(sweepValues);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Cannot load configuration: " + e);
+			System.exit(1);
+		}
+
+		if (options.containsKey("corpus")) {
+			Main.generateCorpusStats(explorationFile, options.get("corpus"), options.get("store"));
+			scan.close();
+			return;
+		}
+
+		if (options.containsKey("web")) {
+			try {
+				int port = options.get("web") == null ? 8080 : Integer.parseInt(options.get("web"));
+				String host = options.get("web-host") == null ? InetAddress.getLoopbackAddress().getHostAddress() : options.get("web-host");
+				Main.annotationServer = new AnnotationServer(new InetSocketAddress(host, port));
+			} catch (IOException | NumberFormatException e) {
+				System.err.println("Cannot start annotation server: " + e);
+				System.exit(1);
+			}
+		} else if (options.containsKey("fast-tui")) {
+			try {
+				int lookahead = options.get("fast-tui") == null ? 10 : Integer.parseInt(options.get("fast-tui"));
+				Main.terminalAnnotator = TerminalAnnotator.open(lookahead);
+			} catch (IOException | NumberFormatException e) {
+				System.err.println("Cannot use fast terminal UI (" + e + ") .. falling back ..");
+			}
+		}
+
+		if (options.containsKey("sample")) {
+			try {
+				Main.sampleMargin = options.get("sample") == null ? 0.05 : Double.parseDouble(options.get("sample"));
+				if (Main.sampleMargin <= 0 || Main.sampleMargin >= 1) {
+					throw new NumberFormatException("Margin has to be in (0,1): " + Main.sampleMargin);
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Invalid margin for sampling: " + e);
+				System.exit(1);
+			}
+			// Samples are drawn one by one and classified with the dialogs or the text UI
+			for (String option : List.of("web", "fast-tui", "watch")) {
+				if (options.containsKey(option)) {
+					System.err.println("--sample cannot be combined with --" + option);
+					System.exit(1);
+				}
+			}
+		}
+
+		Main.compress = options.containsKey("compress");
+		Main.liveStats = options.containsKey("live-stats");
+
+		if (options.get("delta") != null) {
+			File oldExplorationFile = new File(options.get("delta"));
+			File oldEvalFile = options.get("delta-eval") == null ? Main.getEvalFile(oldExplorationFile.getAbsolutePath()) : new File(options.get("delta-eval"));
+			Main.evaluateDelta(scan, oldExplorationFile, oldEvalFile, explorationFile);
+		} else if (explorationFile.isDirectory()) {
+			File evalFile = Main.getEvalFile(explorationFile.getAbsolutePath() + File.separator + explorationFile.getName());
+			File[] explorationFiles = explorationFile.listFiles(Main::isExplorationFile);
 
 			if (explorationFiles == null || explorationFiles.length == 0) {
 				System.err.println("Explored File for Directory does not exis .. skipping ..");
@@ -57,20 +209,174 @@ public final class Main {
 				Main.evaluate(scan, exploredFile, evalFile);
 			}
 
-			File noHypFile = new File(explorationFile.getAbsolutePath() + File.separator + explorationFile.getName() + "-no-hyp.json");
+			File noHypFile = JsonFiles.resolve(new File(explorationFile.getAbsolutePath() + File.separator + explorationFile.getName() + "-no-hyp.json"));
 			if (noHypFile.exists()) {
 				Main.evaluate(scan, noHypFile, evalFile);
 			}
 
-//			Statistics.generateStats(explorationFile, evalFile);
+			boolean scoring = options.containsKey("stats") || options.get("store") != null || options.containsKey("metrics") || options.containsKey("sweep");
+			if (scoring && Main.sampleMargin != null) {
+				// Unsampled hypotheses are not classified .. scores would ignore them
+				System.err.println("Only a sample has been classified .. skipping statistics, metrics and sweep (see the printed estimates)");
+			} else {
+				if (options.containsKey("stats") || options.get("store") != null) {
+					Main.generateStats(explorationFile, evalFile, options.get("store"));
+				}
+				if (options.containsKey("metrics")) {
+					Statistics.generateMetrics(explorationFile, evalFile, Main.configuration);
+				}
+				if (options.containsKey("sweep")) {
+					Statistics.generateSweep(explorationFile, evalFile, sweep);
+				}
+			}
+
+			if (options.containsKey("watch")) {
+				Main.watch(scan, explorationFile, evalFile, explorationFiles, noHypFile);
+			}
 		} else {
-			Main.evaluate(scan, explorationFile, null);
+			Main.evaluate(scan, explorationFile, Main.getEvalFile(explorationFile.getAbsolutePath()));
+		}
+		if (Main.annotationServer != null) {
+			Main.annotationServer.close();
+		}
+		if (Main.terminalAnnotator != null) {
+			Main.terminalAnnotator.close();
 		}
 		scan.close();
 
 	}
 
-	private static void evaluate(Scanner scan, File explorationFile, File evalFile) {
+	private static void generateStats(File directory, File evalFile, String store) {
+		if (store == null) {
+			Statistics.generateStats(directory, evalFile, Main.configuration);
+			return;
+		}
+		try (ResultStore resultStore = ResultStore.open(new File(store))) {
+			Statistics.generateStats(directory, evalFile, Main.configuration, resultStore);
+		} catch (IOException e) {
+			System.err.println("Cannot use result store: " + e);
+		}
+	}
+
+	private static void generateCorpusStats(File corpus, String threads, String store) {
+		try (ResultStore resultStore = store == null ? null : ResultStore.open(new File(store))) {
+			int numberOfThreads = threads == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+			new CorpusStatistics(Main.configuration, resultStore).generateStats(corpus, numberOfThreads);
+		} catch (IOException | NumberFormatException e) {
+			System.err.println("Cannot generate corpus statistics: " + e);
+		}
+	}
+
+	private static void merge(List<String> inputs, File output) {
+		try {
+			List<File> evalFiles = new ArrayList<>();
+			for (String input : inputs) {
+				evalFiles.addAll(EvaluationMerger.findEvalFiles(new File(input)));
+			}
+			// The output of a previous merge is no annotator
+			File previousOutput = output.getCanonicalFile();
+			for (var iterator = evalFiles.iterator(); iterator.hasNext();) {
+				if (iterator.next().getCanonicalFile().equals(previousOutput)) {
+					iterator.remove();
+				}
+			}
+			new EvaluationMerger(evalFiles, Runtime.getRuntime().availableProcessors()).merge(output);
+		} catch (IOException e) {
+			System.err.println("Cannot merge evaluation files: " + e);
+		}
+	}
+
+	private static void query(File store, String rank) {
+		try (ResultStore resultStore = ResultStore.open(store)) {
+			var best = resultStore.findBestCombinationByMeanF1(rank == null ? 0 : Integer.parseInt(rank));
+			for (var entry : best.entrySet()) {
+				String layer = entry.getKey() == ResultStore.ALL_LAYERS ? "All Layers" : "Layer " + entry.getKey();
+				System.out.println(layer + ": " + entry.getValue().getFirst() + String.format(" (mean F1: %.4f)", entry.getValue().getSecond()));
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Cannot query result store: " + e);
+		}
+	}
+
+	private static void parseArguments(String[] args, List<String> inputs, Map<String, String> options) {
+		for (String arg : args) {
+			if (!arg.startsWith("--")) {
+				inputs.add(arg);
+				continue;
+			}
+			int separator = arg.indexOf('=');
+			if (separator == -1) {
+				options.put(arg.substring(2), null);
+			} else {
+				options.put(arg.substring(2, separator), arg.substring(separator + 1));
+			}
+		}
+	}
+
+	private static boolean isExplorationFile(File file) {
+		String name = JsonFiles.getName(file);
+		return name.endsWith(".json") && !(name.endsWith(".eval.json") || name.endsWith("-no-hyp.json"));
+	}
+
+	/**
+	 * Get the evaluation file for a base path ({@code <base>.eval.json}). The
+	 * compressed variant is used iff the uncompressed file does not exist and
+	 * either the compressed file exists or new files shall be compressed.
+	 */
+	private static File getEvalFile(String base) {
+		File evalFile = JsonFiles.resolve(new File(base + ".eval.json"));
+		return Main.compress && !evalFile.exists() ? new File(evalFile.getPath() + JsonFiles.GZIP_SUFFIX) : evalFile;
+	}
+
+	private static void watch(Scanner scan, File directory, File evalFile, File[] explorationFiles, File noHypFile) {
+		// Stored paths (see Configuration#isStorePathsAsFiles()) are no exploration
+		// files
+		try (DirectoryWatcher watcher = new DirectoryWatcher(directory, f -> (Main.isExplorationFile(f) && !JsonFiles.getName(f).endsWith("-best.json")) || f.equals(noHypFile), f -> {
+			if (!Main.evaluate(scan, f, evalFile)) {
+				// Maybe not completely written .. retry on next modification
+				return false;
+			}
+			// Only the new file and files whose scored hypotheses have been (re-)classified
+			// are scored (see StatisticsCheckpoint)
+			Statistics.generateStats(directory, evalFile, Main.configuration);
+			return true;
+		})) {
+			for (File explorationFile : explorationFiles) {
+				watcher.markHandled(explorationFile);
+			}
+			if (noHypFile.exists()) {
+				watcher.markHandled(noHypFile);
+			}
+			watcher.watch();
+		} catch (IOException e) {
+			System.err.println("Cannot watch directory: " + e);
+		}
+	}
+
+	private static void evaluateDelta(Scanner scan, File oldExplorationFile, File oldEvalFile, File explorationFile) {
+		File evalFile = Main.getEvalFile(explorationFile.getAbsolutePath());
+		DeltaEvaluator delta = new DeltaEvaluator(oldExplorationFile, oldEvalFile, explorationFile, evalFile, Main.configuration);
+		Evaluator evaluator;
+		try {
+			evaluator = delta.prepare();
+		} catch (IOException e) {
+			System.err.println("Cannot load file: " + e);
+			return;
+		}
+		evaluator.setClassificationDatabase(Main.classificationDatabase);
+
+		Main.startEvaluation(scan, evaluator);
+
+		try {
+			evaluator.save();
+			File report = new File(evalFile.getAbsolutePath() + ".delta.csv");
+			System.err.println(delta.reportChanges(report) + " paths with changed scores, see " + report.getName());
+		} catch (IOException e) {
+			System.err.println("Error while saving file ..");
+		}
+	}
+
+	private static boolean evaluate(Scanner scan, File explorationFile, File evalFile) {
 		System.err.println("FILE: " + explorationFile.getName());
 
 		Evaluator evaluator = null;
@@ -78,7 +384,11 @@ public final class Main {
 			evaluator = new Evaluator(explorationFile, evalFile);
 		} catch (IOException e) {
 			System.err.println("Cannot load file: " + e);
-			return;
+			return false;
+		}
+		evaluator.setClassificationDatabase(Main.classificationDatabase);
+		if (Main.liveStats) {
+			Main.addLiveStats(explorationFile, evaluator);
 		}
 
 		Main.startEvaluation(scan, evaluator);
@@ -89,30 +399,79 @@ public final class Main {
 			System.err.println("Error while saving file ..");
 		}
 
+		if (Main.classificationDatabase != null) {
+			try {
+				Main.classificationDatabase.save(Main.classificationDatabaseFile);
+			} catch (IOException e) {
+				System.err.println("Error while saving global classification database ..");
+			}
+		}
+		return true;
+
+	}
+
+	private static void addLiveStats(File explorationFile, Evaluator evaluator) {
+		IncrementalStatistics statistics = new IncrementalStatistics(evaluator, Statistics.createViews(explorationFile, evaluator.getExplorationResult()));
+		// Registered after the statistics .. thus, the scores are already updated
+		evaluator.addClassificationListener((layer, hypothesis, classification) -> {
+			ScoredPath best = statistics.getBest();
+			if (best != null) {
+				ScoreMatrix total = best.getScores();
+				System.err.println("Best: " + best.getName() + " Score: " + total.toScore(total.layers()));
+			}
+		});
 	}
 
 	private static void startEvaluation(Scanner scan, Evaluator evaluator) {
+		if (Main.annotationServer != null) {
+			try {
+				Main.annotationServer.annotate(evaluator);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return;
+		}
+		if (Main.terminalAnnotator != null) {
+			try {
+				Main.terminalAnnotator.annotate(evaluator);
+			} catch (IOException e) {
+				System.err.println("Cannot read from terminal: " + e);
+			}
+			return;
+		}
+
 		if (Main.useGUI) {
 			Main.setSystemLookAndFeel();
 		}
 
+		if (Main.sampleMargin != null) {
+			// The estimated scores refer to the hypotheses scored with this configuration
+			evaluator.setConfiguration(Main.configuration);
+			StratifiedSampler sampler = new StratifiedSampler(evaluator, Main.sampleMargin, Main.configuration.getBootstrapConfidence(), 5, 4);
+			for (var estimate : sampler.sample(next -> Main.classify(scan, evaluator, next))) {
+				System.out.println(estimate);
+			}
+			return;
+		}
+
 		Tuple3<Integer, HypothesisDTO, String> next;
 		while ((next = evaluator.findNextHypothesis()) != null) {
-			int layer = next.getFirst();
-			HypothesisDTO hypothesis = next.getSecond();
-			String word = next.getThird();
-
-			Classification cls;
-			if (Main.useGUI) {
-				cls = Main.classifyGUI(evaluator, layer, hypothesis, word);
-			} else {
-				cls = Main.classifyTUI(scan, evaluator, layer, hypothesis, word);
-			}
-			evaluator.setClassification(next.getFirst(), next.getSecond(), cls);
+			evaluator.setClassification(next.getFirst(), next.getSecond(), Main.classify(scan, evaluator, next));
 		}
 
 	}
 
+	private static Classification classify(Scanner scan, Evaluator evaluator, Tuple3<Integer, HypothesisDTO, String> next) {
+		int layer = next.getFirst();
+		HypothesisDTO hypothesis = next.getSecond();
+		String word = next.getThird();
+
+		if (Main.useGUI) {
+			return Main.classifyGUI(evaluator, layer, hypothesis, word);
+		}
+		return Main.classifyTUI(scan, evaluator, layer, hypothesis, word);
+	}
+
 	private static Classification classifyGUI(Evaluator evaluator, int layer, HypothesisDTO hypothesis, String word) {
 		String[] answers = Arrays.asList(Classification.values()).stream().map(Classification::toString).collect(Collectors.toList()).toArray(String[]::new);
 
@@ -0,0 +1,228 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSet;
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesis;
+
+/**
+ * Calculates {@link Metrics} of exploration results or paths in one traversal.
+ * Besides precision, recall and F1 this covers:
+ * <ul>
+ * <li>weighted precision, recall and F1: each classified hypothesis contributes
+ * its gain (see {@link #gain(Classification)}) instead of being counted as
+ * correct or wrong, thus {@link Classification#RATHER_CORRECT} and
+ * {@link Classification#RATHER_WRONG} count partially</li>
+ * <li>precision@k, MRR and nDCG@k over the (by confidence) sorted hypotheses of
+ * all hypotheses sets in the traversed layer entries (unclassified hypotheses
+ * are skipped); precision@k always divides by {@code k} (shorter rankings
+ * cannot reach 1) and the ranking metrics are undefined ({@code NaN}) without
+ * any ranking</li>
+ * </ul>
+ */
+public final class MetricEngine {
+
+	private final Evaluator evaluator;
+	private final int k;
+	private final List<Map<String, Classification>> classificationPerLayer = new ArrayList<>();
+	private final int[] possibleHitsPerLayer;
+	private final double[] possibleGainPerLayer;
+
+	/**
+	 * Create a new engine based on the current classifications of an evaluator.
+	 *
+	 * @param evaluator the evaluator
+	 */
+	public MetricEngine(Evaluator evaluator) {
+		this.evaluator = evaluator;
+		this.k = evaluator.getConfiguration().getRankingCutoff();
+
+		var data = evaluator.getEvaluationData().readClassificationPerLayer();
+		this.possibleHitsPerLayer = new int[data.size()];
+		this.possibleGainPerLayer = new double[data.size()];
+		for (int layer = 0; layer < data.size(); layer++) {
+			Map<String, Classification> classifications = new HashMap<>();
+			for (var entry : data.get(layer).entrySet()) {
+				for (var hypothesis : entry.getValue()) {
+					classifications.put(hypothesis.getValue(), entry.getKey());
+				}
+			}
+			for (var classification : classifications.values()) {
+				if (Classification.isGood(classification) == Boolean.TRUE) {
+					this.possibleHitsPerLayer[layer]++;
+				}
+				this.possibleGainPerLayer[layer] += MetricEngine.gain(classification);
+			}
+			this.classificationPerLayer.add(classifications);
+		}
+	}
+
+	/**
+	 * The gain of a classification in [0,1] (linear in
+	 * {@link Classification#getValue()}).
+	 *
+	 * @param classification the classification
+	 * @return the gain ({@code 1} for {@link Classification#CORRECT}, {@code 0}
+	 *         for {@link Classification#WRONG})
+	 */
+	public static double gain(Classification classification) {
+		double min = Classification.WRONG.getValue();
+		double max = Classification.CORRECT.getValue();
+		return (classification.getValue() - min) / (max - min);
+	}
+
+	/**
+	 * Calculate the metrics of an exploration result or path.
+	 *
+	 * @param view               the view on the exploration result or path
+	 * @param isPseudoHypothesis indicator for pseudo hypotheses
+	 * @return the metrics for each layer and the metrics of all layers as last
+	 *         element
+	 */
+	public List<Metrics> calculate(PathView view, boolean isPseudoHypothesis) {
+		List<LayerAccumulator> layers = new ArrayList<>();
+		this.evaluator.collectScoredHypotheses(view, isPseudoHypothesis, //
+				(l, h) -> this.getAccumulator(layers, l).addScored(h, this.getClassification(l, h)), //
+				(l, hs) -> this.getAccumulator(layers, l).addRanking(this.getClassifications(l, hs)));
+
+		List<Metrics> result = new ArrayList<>();
+		LayerAccumulator all = new LayerAccumulator();
+		int allPossibleHits = Arrays.stream(this.possibleHitsPerLayer).sum();
+		double allPossibleGain = Arrays.stream(this.possibleGainPerLayer).sum();
+
+		for (int layer = 0; layer < layers.size(); layer++) {
+			LayerAccumulator accumulator = layers.get(layer);
+			int possibleHits = layer < this.possibleHitsPerLayer.length ? this.possibleHitsPerLayer[layer] : 0;
+			double possibleGain = layer < this.possibleGainPerLayer.length ? this.possibleGainPerLayer[layer] : 0;
+			result.add(accumulator.toMetrics(possibleHits, possibleGain, this.k));
+			all.add(accumulator, layer);
+		}
+		result.add(all.toMetrics(allPossibleHits, allPossibleGain, this.k));
+		return result;
+	}
+
+	private LayerAccumulator getAccumulator(List<LayerAccumulator> layers, int layer) {
+		while (layers.size() <= layer) {
+			layers.add(new LayerAccumulator());
+		}
+		return layers.get(layer);
+	}
+
+	private Classification getClassification(int layer, IHypothesis hypothesis) {
+		return layer < this.classificationPerLayer.size() ? this.classificationPerLayer.get(layer).get(hypothesis.getValue()) : null;
+	}
+
+	private Classification[] getClassifications(int layer, IHypothesesSet hs) {
+		// Only classified hypotheses will be ranked
+		List<IHypothesis> sorted = hs.getSortedHypotheses();
+		Classification[] ranked = new Classification[sorted.size()];
+		int size = 0;
+		for (IHypothesis hypothesis : sorted) {
+			Classification classification = this.getClassification(layer, hypothesis);
+			if (classification != null) {
+				ranked[size++] = classification;
+			}
+		}
+		return Arrays.copyOf(ranked, size);
+	}
+
+	private final class LayerAccumulator {
+		private final Map<String, Classification> scored = new HashMap<>();
+		private double precisionAtK;
+		private double reciprocalRank;
+		private double ndcg;
+		private int rankings;
+
+		private void addScored(IHypothesis hypothesis, Classification classification) {
+			if (classification != null) {
+				this.addScored(hypothesis.getValue(), classification);
+			}
+		}
+
+		private void addScored(String key, Classification classification) {
+			// Each key is counted once (the classification of a value is unique)
+			this.scored.putIfAbsent(key, classification);
+		}
+
+		private void addRanking(Classification[] ranked) {
+			if (ranked.length == 0) {
+				return;
+			}
+			int cutoff = Math.min(MetricEngine.this.k, ranked.length);
+			int good = 0;
+			double dcg = 0;
+			double[] gains = new double[ranked.length];
+			for (int i = 0; i < ranked.length; i++) {
+				gains[i] = MetricEngine.gain(ranked[i]);
+				if (i < cutoff) {
+					good += Classification.isGood(ranked[i]) == Boolean.TRUE ? 1 : 0;
+					dcg += this.discountedGain(gains[i], i);
+				}
+			}
+			for (int i = 0; i < ranked.length; i++) {
+				if (Classification.isGood(ranked[i]) == Boolean.TRUE) {
+					this.reciprocalRank += 1.0 / (i + 1);
+					break;
+				}
+			}
+
+			Arrays.sort(gains);
+			double idcg = 0;
+			for (int i = 0; i < cutoff; i++) {
+				idcg += this.discountedGain(gains[gains.length - 1 - i], i);
+			}
+
+			this.precisionAtK += 1.0 * good / MetricEngine.this.k;
+			this.ndcg += idcg == 0 ? 0 : dcg / idcg;
+			this.rankings++;
+		}
+
+		private double discountedGain(double gain, int rank) {
+			return (Math.pow(2, gain) - 1) / (Math.log(rank + 2) / Math.log(2));
+		}
+
+		private void add(LayerAccumulator other, int layer) {
+			// Values are distinct per layer .. use the layer as part of the key
+			for (var entry : other.scored.entrySet()) {
+				this.addScored(layer + ":" + entry.getKey(), entry.getValue());
+			}
+			this.precisionAtK += other.precisionAtK;
+			this.reciprocalRank += other.reciprocalRank;
+			this.ndcg += other.ndcg;
+			this.rankings += other.rankings;
+		}
+
+		private Metrics toMetrics(int possibleHits, double possibleGain, int k) {
+			int tp = 0;
+			int fp = 0;
+			double weightedTp = 0;
+			double weightedFp = 0;
+			for (Classification classification : this.scored.values()) {
+				Boolean good = Classification.isGood(classification);
+				if (good == Boolean.TRUE) {
+					tp++;
+				} else if (good == Boolean.FALSE) {
+					fp++;
+				}
+				double gain = MetricEngine.gain(classification);
+				weightedTp += gain;
+				weightedFp += 1 - gain;
+			}
+
+			Score score = new Score(tp, fp, possibleHits - tp);
+			double weightedPrecision = weightedTp / (weightedTp + weightedFp);
+			double weightedRecall = weightedTp / possibleGain;
+			return new Metrics(score, weightedPrecision, weightedRecall, k, this.mean(this.precisionAtK), this.mean(this.reciprocalRank), this.mean(this.ndcg));
+		}
+
+		private double mean(double sum) {
+			// No rankings (e.g. no classified hypotheses sets) .. undefined (as precision
+			// without classified hypotheses)
+			return this.rankings == 0 ? Double.NaN : sum / this.rankings;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package edu.kit.ipd.eagle.evaluator;
+
+/**
+ * Defines a wrapper for the extended metrics of one layer (or all layers) of an
+ * exploration result or path. See {@link MetricEngine}.
+ */
+public final class Metrics {
+	/**
+	 * The (unweighted) score.
+	 */
+	public final Score score;
+	/**
+	 * The precision weighted by {@link Classification#getValue()}.
+	 */
+	public final double weightedPrecision;
+	/**
+	 * The recall weighted by {@link Classification#getValue()}.
+	 */
+	public final double weightedRecall;
+	/**
+	 * Harmonic mean of {@link #weightedPrecision} and {@link #weightedRecall}.
+	 */
+	public final double weightedF1;
+	/**
+	 * The cutoff for {@link #precisionAtK} and {@link #ndcg}.
+	 */
+	public final int k;
+	/**
+	 * The mean precision at {@link #k} over the sorted hypotheses sets.
+	 */
+	public final double precisionAtK;
+	/**
+	 * The mean reciprocal rank of the first correct hypothesis over the sorted
+	 * hypotheses sets.
+	 */
+	public final double mrr;
+	/**
+	 * The mean normalized discounted cumulative gain at {@link #k} over the sorted
+	 * hypotheses sets.
+	 */
+	public final double ndcg;
+
+	/**
+	 * Create metrics wrapper.
+	 *
+	 * @param score              the (unweighted) score
+	 * @param weightedPrecision  the weighted precision
+	 * @param weightedRecall     the weighted recall
+	 * @param k                  the cutoff for ranking metrics
+	 * @param precisionAtK       the mean precision at k
+	 * @param mrr                the mean reciprocal rank
+	 * @param ndcg               the mean normalized discounted cumulative gain at
+	 *                           k
+	 */
+	public Metrics(Score score, double weightedPrecision, double weightedRecall, int k, double precisionAtK, double mrr, double ndcg) {
+		this.score = score;
+		this.weightedPrecision = weightedPrecision;
+		this.weightedRecall = weightedRecall;
+		this.weightedF1 = 2 * weightedPrecision * weightedRecall / (weightedPrecision + weightedRecall);
+		this.k = k;
+		this.precisionAtK = precisionAtK;
+		this.mrr = mrr;
+		this.ndcg = ndcg;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s, wP: %.2f%%, wR: %.2f%%, wF1: %.2f%%, P@%d: %.2f%%, MRR: %.4f, nDCG@%d: %.4f", this.score, this.weightedPrecision * 100, this.weightedRecall * 100,
+				this.weightedF1 * 100, this.k, this.precisionAtK * 100, this.mrr, this.k, this.ndcg);
+	}
+}
@@ -0,0 +1,20 @@
+package edu.kit.ipd.eagle.evaluator;
+
+/**
+ * The different possibilities to store rated paths (see
+ * {@link Configuration#isStorePathsAsFiles()}).
+ */
+public enum PathStorage {
+	/**
+	 * One JSON file per path.
+	 */
+	FILES,
+	/**
+	 * One JSON-lines file (one path per line) per rating combination.
+	 */
+	JSON_LINES,
+	/**
+	 * One compressed ZIP archive (one entry per path) per rating combination.
+	 */
+	ZIP
+}
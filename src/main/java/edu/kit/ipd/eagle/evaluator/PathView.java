@@ -0,0 +1,133 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.List;
+
+import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
+import edu.kit.ipd.eagle.port.xplore.IPath;
+import edu.kit.ipd.eagle.port.xplore.layer.ILayerEntry;
+
+/**
+ * A lightweight view on something that can be scored: either a complete
+ * exploration result or a single (rated) {@link IPath} of an exploration. For
+ * paths, no {@link IExplorationResult} will be created until it is explicitly
+ * requested via {@link #toExplorationResult()}.
+ */
+public final class PathView {
+	/**
+	 * The combination of views on complete exploration results.
+	 */
+	public static final String EXPLORATION = "Exploration";
+
+	private final String name;
+	private final String id;
+	private final String combination;
+	private final int rank;
+	private final IPath path;
+	private final IExplorationResult exploration;
+
+	private PathView(String name, String id, String combination, int rank, IPath path, IExplorationResult exploration) {
+		this.name = name;
+		this.id = id;
+		this.combination = combination;
+		this.rank = rank;
+		this.path = path;
+		this.exploration = exploration;
+	}
+
+	/**
+	 * Create a view on a complete exploration result.
+	 *
+	 * @param name        the name of the view
+	 * @param exploration the exploration result
+	 * @return the view
+	 */
+	public static PathView of(String name, IExplorationResult exploration) {
+		return new PathView(name, exploration.getId(), EXPLORATION, -1, null, exploration);
+	}
+
+	/**
+	 * Create a view on a single path.
+	 *
+	 * @param name        the name of the view
+	 * @param id          the id of the path (used iff an exploration result is
+	 *                    created)
+	 * @param combination the rating combination that ranked the path
+	 * @param rank        the rank of the path in the rating combination
+	 * @param path        the path
+	 * @return the view
+	 */
+	public static PathView of(String name, String id, String combination, int rank, IPath path) {
+		return new PathView(name, id, combination, rank, path, null);
+	}
+
+	/**
+	 * Get the name of the view (e.g. the file name).
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Get the id of the exploration (may be the text).
+	 *
+	 * @return the id
+	 */
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Get the rating combination that ranked the path (e.g.
+	 * {@code SELECTOR-EVALUATION-COMBINATION}).
+	 *
+	 * @return the rating combination or {@link #EXPLORATION} iff this is a view on
+	 *         a complete exploration
+	 */
+	public String getCombination() {
+		return this.combination;
+	}
+
+	/**
+	 * Get the rank of the path in its rating combination.
+	 *
+	 * @return the rank or {@code -1} iff this is a view on a complete exploration
+	 */
+	public int getRank() {
+		return this.rank;
+	}
+
+	/**
+	 * Create (or get) the exploration result of this view. For paths, a new
+	 * exploration result will be created for each invocation.
+	 *
+	 * @return the exploration result
+	 */
+	public IExplorationResult toExplorationResult() {
+		if (this.exploration != null) {
+			return this.exploration;
+		}
+		return this.path.toExplorationResult(this.id);
+	}
+
+	/**
+	 * Get the root of the exploration tree.
+	 *
+	 * @return the root of the exploration or {@code null} iff this is a view on a
+	 *         path
+	 */
+	ILayerEntry getExplorationRoot() {
+		return this.exploration == null ? null : this.exploration.getExplorationRoot();
+	}
+
+	/**
+	 * Get the layer entries of the path.
+	 *
+	 * @return the layer entries (from root to leaf) or {@code null} iff this is a
+	 *         view on a complete exploration
+	 */
+	List<ILayerEntry> getLayerEntries() {
+		return this.path == null ? null : this.path.getPath();
+	}
+}
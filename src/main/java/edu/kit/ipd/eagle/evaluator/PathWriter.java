@@ -0,0 +1,157 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.kit.ipd.eagle.port.util.Serialize;
+
+/**
+ * Writes rated paths asynchronously to disk. All paths are serialized by one
+ * background thread with a single (reused) object mapper. Depending on the
+ * {@link PathStorage} the paths of one rating combination are packed into one
+ * file. At most {@value #QUEUE_CAPACITY} paths are queued; if the queue is
+ * full, the calling thread waits (thereby, the paths are written in the order
+ * of {@link #write(String, PathView)}).
+ */
+public final class PathWriter implements AutoCloseable {
+	private static final int QUEUE_CAPACITY = 256;
+
+	private final Path baseDirectory;
+	private final PathStorage storage;
+	private final ExecutorService executor;
+
+	private final ObjectMapper mapper;
+	private final ObjectWriter lineWriter;
+
+	private final Map<String, BufferedWriter> jsonLines = new HashMap<>();
+	private final Map<String, ZipOutputStream> archives = new HashMap<>();
+
+	/**
+	 * Create a new writer.
+	 *
+	 * @param baseDirectory the directory for the paths
+	 * @param storage       the kind of storage
+	 */
+	public PathWriter(File baseDirectory, PathStorage storage) {
+		this.baseDirectory = baseDirectory.toPath();
+		this.storage = storage;
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+			Thread thread = new Thread(r, "PathWriter");
+			thread.setDaemon(true);
+			return thread;
+		}, PathWriter::enqueue);
+		this.mapper = Serialize.getObjectMapperForGetters(true);
+		this.lineWriter = this.mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	/**
+	 * Schedule a path for writing.
+	 *
+	 * @param combination the name of the rating combination (used as file name for
+	 *                    {@link PathStorage#JSON_LINES} and {@link PathStorage#ZIP})
+	 * @param view        the path (the name of the view is used as file name for
+	 *                    {@link PathStorage#FILES})
+	 */
+	public void write(String combination, PathView view) {
+		this.executor.execute(() -> {
+			try {
+				this.store(combination, view);
+			} catch (IOException e) {
+				System.err.println("Error while storing file .. " + e);
+			}
+		});
+	}
+
+	private static void enqueue(Runnable task, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("Writer has been closed");
+		}
+		try {
+			executor.getQueue().put(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException(e);
+		}
+	}
+
+	private void store(String combination, PathView view) throws IOException {
+		switch (this.storage) {
+		case FILES:
+			Files.write(this.baseDirectory.resolve(view.getName()), this.mapper.writeValueAsBytes(view.toExplorationResult()));
+			break;
+		case JSON_LINES:
+			BufferedWriter writer = this.jsonLines.get(combination);
+			if (writer == null) {
+				writer = Files.newBufferedWriter(this.baseDirectory.resolve(combination + ".paths.jsonl"), StandardCharsets.UTF_8);
+				this.jsonLines.put(combination, writer);
+			}
+			writer.write(this.lineWriter.writeValueAsString(view.toExplorationResult()));
+			writer.newLine();
+			break;
+		case ZIP:
+			ZipOutputStream zip = this.archives.get(combination);
+			if (zip == null) {
+				OutputStream out = new BufferedOutputStream(Files.newOutputStream(this.baseDirectory.resolve(combination + ".paths.zip")));
+				zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+				this.archives.put(combination, zip);
+			}
+			zip.putNextEntry(new ZipEntry(view.getName()));
+			zip.write(this.mapper.writeValueAsBytes(view.toExplorationResult()));
+			zip.closeEntry();
+			break;
+		default:
+			throw new IllegalStateException("Unknown storage: " + this.storage);
+		}
+	}
+
+	/**
+	 * Wait for all scheduled paths and close all files.
+	 */
+	@Override
+	public void close() {
+		this.executor.shutdown();
+		try {
+			while (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				System.err.println("Waiting for paths to be written ..");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (var writer : this.jsonLines.values()) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				System.err.println("Error while storing file .. " + e);
+			}
+		}
+		for (var zip : this.archives.values()) {
+			try {
+				zip.close();
+			} catch (IOException e) {
+				System.err.println("Error while storing file .. " + e);
+			}
+		}
+		this.jsonLines.clear();
+		this.archives.clear();
+	}
+}
@@ -0,0 +1,311 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.kit.ipd.eagle.port.util.Serialize;
+
+/**
+ * A content-addressed on-disk cache for scored paths. The scored paths of a
+ * rating combination depend on the content and the name of the exploration
+ * file (the scored paths are named by it), the (scoring relevant part of the)
+ * {@link Configuration} and the classifications of the scored hypotheses. For
+ * each exploration file and rating combination, the cache stores the scored
+ * values (see {@link #getValues(String, String)}); an entry is addressed by
+ * the SHA-256 of the inputs and the classifications of these values (see
+ * {@link #hash(List, List)}). Thus, entries never become invalid: changed
+ * inputs simply address other entries, and classifications of other values do
+ * not matter. The cache is bounded by size; the least recently used files (by
+ * modification time, which is updated on each hit) will be evicted.
+ */
+public final class ResultCache {
+	private static final String SUFFIX = ".scores.json";
+	private static final String VALUES_SUFFIX = ".values.json";
+	private static final Map<String, ResultCache> OPENED = new ConcurrentHashMap<>();
+
+	private final Path directory;
+	private long maxBytes;
+	private final ObjectMapper mapper;
+	private long bytes;
+
+	private ResultCache(Path directory, long maxBytes) throws IOException {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		this.mapper = Serialize.getObjectMapper(true);
+		for (Path entry : this.entries()) {
+			this.bytes += Files.size(entry);
+		}
+	}
+
+	/**
+	 * Open (or create) a cache. All invocations for the same directory share one
+	 * instance (e.g. when scoring scenarios in parallel); the maximum size of the
+	 * last invocation applies.
+	 *
+	 * @param directory the directory of the cache
+	 * @param maxBytes  the maximum size of the cache in bytes
+	 * @return the cache
+	 * @throws IOException iff the cache cannot be opened
+	 */
+	public static ResultCache open(File directory, long maxBytes) throws IOException {
+		Files.createDirectories(directory.toPath());
+		Path path = directory.getCanonicalFile().toPath();
+		ResultCache cache;
+		try {
+			cache = OPENED.computeIfAbsent(path.toString(), k -> {
+				try {
+					return new ResultCache(path, maxBytes);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		cache.setMaxBytes(maxBytes);
+		return cache;
+	}
+
+	private synchronized void setMaxBytes(long maxBytes) throws IOException {
+		this.maxBytes = maxBytes;
+		if (this.bytes > this.maxBytes) {
+			this.evict();
+		}
+	}
+
+	/**
+	 * Calculate the key of all entries that belong to an exploration file.
+	 *
+	 * @param explorationFile the exploration file
+	 * @param configuration   the configuration for scoring
+	 * @return the key
+	 * @throws IOException iff the file cannot be read
+	 */
+	String getKey(File explorationFile, Configuration configuration) throws IOException {
+		return ResultCache.hash(ResultCache.hash(explorationFile) + "|" + explorationFile.getName() + "|" + configuration + "|" + ScoredPath.FORMAT);
+	}
+
+	/**
+	 * Get the values scored by the paths of a rating combination (regardless of
+	 * their classification).
+	 *
+	 * @param key         the key of the exploration file (see
+	 *                    {@link #getKey(File, Configuration)})
+	 * @param combination the rating combination
+	 * @return the sorted values of each layer or {@code null} iff not cached
+	 */
+	synchronized List<List<String>> getValues(String key, String combination) {
+		Values cached = this.read(this.getValuesEntry(key, combination), Values.class);
+		return cached == null ? null : cached.values;
+	}
+
+	/**
+	 * Get the scored paths of a rating combination.
+	 *
+	 * @param key             the key of the exploration file (see
+	 *                        {@link #getKey(File, Configuration)})
+	 * @param combination     the rating combination
+	 * @param classifications the hash of the classifications of the scored values
+	 *                        (see {@link #hash(List, List)})
+	 * @return the scored paths or {@code null} iff not cached
+	 */
+	synchronized List<ScoredPath> get(String key, String combination, String classifications) {
+		Entry cached = this.read(this.getEntry(key, combination, classifications), Entry.class);
+		return cached == null ? null : cached.paths;
+	}
+
+	private <T> T read(Path entry, Class<T> type) {
+		if (!Files.exists(entry)) {
+			return null;
+		}
+		try {
+			T cached = this.mapper.readValue(entry.toFile(), type);
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+			return cached;
+		} catch (IOException e) {
+			System.err.println("Cannot read cache entry .. ignoring: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Store the scored paths of a rating combination.
+	 *
+	 * @param key             the key of the exploration file (see
+	 *                        {@link #getKey(File, Configuration)})
+	 * @param combination     the rating combination
+	 * @param values          the sorted values of each layer scored by the paths
+	 * @param classifications the hash of the classifications of the scored values
+	 *                        (see {@link #hash(List, List)})
+	 * @param paths           the scored paths
+	 * @throws IOException iff the entry cannot be written
+	 */
+	synchronized void put(String key, String combination, List<List<String>> values, String classifications, List<ScoredPath> paths) throws IOException {
+		this.write(this.getValuesEntry(key, combination), new Values(values));
+		this.write(this.getEntry(key, combination, classifications), new Entry(paths));
+
+		if (this.bytes > this.maxBytes) {
+			this.evict();
+		}
+	}
+
+	private void write(Path entry, Object content) throws IOException {
+		Path temporary = Files.createTempFile(this.directory, "entry", ".tmp");
+		try {
+			this.mapper.writeValue(temporary.toFile(), content);
+			long size = Files.size(temporary);
+			long replaced = Files.exists(entry) ? Files.size(entry) : 0;
+			Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			this.bytes += size - replaced;
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private void evict() throws IOException {
+		List<Path> entries = this.entries();
+		Map<Path, FileTime> accessed = new HashMap<>();
+		for (Path entry : entries) {
+			accessed.put(entry, Files.getLastModifiedTime(entry));
+		}
+		entries.sort(Comparator.comparing(accessed::get));
+
+		for (Path entry : entries) {
+			if (this.bytes <= this.maxBytes) {
+				return;
+			}
+			long size = Files.size(entry);
+			if (Files.deleteIfExists(entry)) {
+				this.bytes -= size;
+			}
+		}
+	}
+
+	private List<Path> entries() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			return files.filter(f -> f.getFileName().toString().endsWith(SUFFIX) || f.getFileName().toString().endsWith(VALUES_SUFFIX)).collect(Collectors.toList());
+		}
+	}
+
+	private Path getValuesEntry(String key, String combination) {
+		return this.directory.resolve(ResultCache.hash(key + "|" + combination) + VALUES_SUFFIX);
+	}
+
+	private Path getEntry(String key, String combination, String classifications) {
+		return this.directory.resolve(ResultCache.hash(key + "|" + combination + "|" + classifications) + SUFFIX);
+	}
+
+	/**
+	 * Calculate the SHA-256 of the classifications of some values. The values
+	 * are serialized canonically (sorted per layer, with their classification).
+	 *
+	 * @param classificationPerLayer the classifications by value of each layer
+	 *                               (see
+	 *                               {@link EvaluationData#getClassificationsByValue()})
+	 * @param values                 the values of each layer
+	 * @return the hash (hex)
+	 */
+	static String hash(List<Map<String, Classification>> classificationPerLayer, List<? extends Collection<String>> values) {
+		StringBuilder canonical = new StringBuilder();
+		for (int layer = 0; layer < values.size(); layer++) {
+			Map<String, Classification> classifications = layer < classificationPerLayer.size() ? classificationPerLayer.get(layer) : Map.of();
+			List<String> sorted = new ArrayList<>(values.get(layer));
+			Collections.sort(sorted);
+			canonical.append(layer).append("\n");
+			for (String value : sorted) {
+				// Length prefixed .. values may contain any character
+				Classification classification = classifications.get(value);
+				canonical.append(value.length()).append(':').append(value).append('=').append(classification == null ? "-" : classification.name()).append("\n");
+			}
+		}
+		return ResultCache.hash(canonical.toString());
+	}
+
+	/**
+	 * Calculate the SHA-256 of the content of a file.
+	 *
+	 * @param file the file
+	 * @return the hash (hex)
+	 * @throws IOException iff the file cannot be read
+	 */
+	static String hash(File file) throws IOException {
+		MessageDigest digest = ResultCache.createDigest();
+		try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		return ResultCache.toHex(digest.digest());
+	}
+
+	/**
+	 * Calculate the SHA-256 of a string (UTF-8).
+	 *
+	 * @param value the string
+	 * @return the hash (hex)
+	 */
+	static String hash(String value) {
+		return ResultCache.toHex(ResultCache.createDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] hash) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : hash) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static final class Values {
+		private List<List<String>> values;
+
+		private Values() {
+			// NOP (for deserialization)
+		}
+
+		private Values(List<List<String>> values) {
+			this.values = values;
+		}
+	}
+
+	private static final class Entry {
+		private List<ScoredPath> paths;
+
+		private Entry() {
+			// NOP (for deserialization)
+		}
+
+		private Entry(List<ScoredPath> paths) {
+			this.paths = paths;
+		}
+	}
+}
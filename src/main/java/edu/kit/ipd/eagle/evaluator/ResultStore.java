@@ -0,0 +1,328 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.fuchss.tools.tuple.Tuple2;
+
+/**
+ * An append-only columnar store for scores of many scenarios. Each column is
+ * stored in its own file (primitive values), scenario and combination names are
+ * dictionary encoded. Each row contains the score of one layer (or all layers,
+ * see {@link #ALL_LAYERS}) of one path. The columns are written one after
+ * another; rows that have not been written to all columns (e.g. after a crash)
+ * are dropped when the store is opened. The rows of a path are appended
+ * together (the score of all layers last); if a path (scenario, combination and
+ * rank) is appended again (e.g. a scenario is scored again), queries only
+ * consider its latest rows.
+ */
+public final class ResultStore implements AutoCloseable {
+	/**
+	 * The layer of rows that contain the score of all layers.
+	 */
+	public static final int ALL_LAYERS = -1;
+
+	private static final int FLUSH_ROWS = 4096;
+
+	private static final String SCENARIO = "scenario";
+	private static final String COMBINATION = "combination";
+	private static final String RANK = "rank";
+	private static final String LAYER = "layer";
+	private static final String TP = "tp";
+	private static final String FP = "fp";
+	private static final String FN = "fn";
+	private static final String PRECISION = "precision";
+	private static final String RECALL = "recall";
+	private static final String F1 = "f1";
+
+	private static final String[] INT_COLUMNS = { SCENARIO, COMBINATION, RANK, LAYER, TP, FP, FN };
+	private static final String[] DOUBLE_COLUMNS = { PRECISION, RECALL, F1 };
+
+	private final Path directory;
+	private final Dictionary scenarios;
+	private final Dictionary combinations;
+
+	private final Map<String, ByteBuffer> pending = new HashMap<>();
+	private int pendingRows;
+
+	private ResultStore(Path directory) throws IOException {
+		this.directory = directory;
+		this.scenarios = new Dictionary(directory.resolve(SCENARIO + ".dict"));
+		this.combinations = new Dictionary(directory.resolve(COMBINATION + ".dict"));
+		for (String column : INT_COLUMNS) {
+			this.pending.put(column, ByteBuffer.allocate(FLUSH_ROWS * Integer.BYTES));
+		}
+		for (String column : DOUBLE_COLUMNS) {
+			this.pending.put(column, ByteBuffer.allocate(FLUSH_ROWS * Double.BYTES));
+		}
+	}
+
+	/**
+	 * Open (or create) a store.
+	 *
+	 * @param directory the directory of the store
+	 * @return the store
+	 * @throws IOException iff the store cannot be opened
+	 */
+	public static ResultStore open(File directory) throws IOException {
+		Files.createDirectories(directory.toPath());
+		ResultStore store = new ResultStore(directory.toPath());
+		store.truncateIncompleteRows();
+		return store;
+	}
+
+	private void truncateIncompleteRows() throws IOException {
+		long rows = this.countRows();
+		for (String column : this.pending.keySet()) {
+			Path file = this.columnFile(column);
+			long size = rows * ResultStore.bytesPerRow(column);
+			if (Files.exists(file) && Files.size(file) > size) {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+					channel.truncate(size);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Count the rows that have been written to all columns.
+	 */
+	private long countRows() throws IOException {
+		long rows = Long.MAX_VALUE;
+		for (String column : this.pending.keySet()) {
+			Path file = this.columnFile(column);
+			rows = Math.min(rows, Files.exists(file) ? Files.size(file) / ResultStore.bytesPerRow(column) : 0);
+		}
+		return rows;
+	}
+
+	/**
+	 * Append the scores of a path.
+	 *
+	 * @param scenario    the name of the scenario
+	 * @param combination the rating combination of the path
+	 * @param rank        the rank of the path in the rating combination
+	 * @param scores      the scores of the path (for each layer and the total
+	 *                    score as last element)
+	 * @throws IOException iff data cannot be written
+	 */
+	public synchronized void append(String scenario, String combination, int rank, List<Score> scores) throws IOException {
+		int scenarioId = this.scenarios.encode(scenario);
+		int combinationId = this.combinations.encode(combination);
+		for (int i = 0; i < scores.size(); i++) {
+			Score score = scores.get(i);
+			int layer = i == scores.size() - 1 ? ALL_LAYERS : i;
+			this.pending.get(SCENARIO).putInt(scenarioId);
+			this.pending.get(COMBINATION).putInt(combinationId);
+			this.pending.get(RANK).putInt(rank);
+			this.pending.get(LAYER).putInt(layer);
+			this.pending.get(TP).putInt(score.tp);
+			this.pending.get(FP).putInt(score.fp);
+			this.pending.get(FN).putInt(score.fn);
+			this.pending.get(PRECISION).putDouble(score.precision);
+			this.pending.get(RECALL).putDouble(score.recall);
+			this.pending.get(F1).putDouble(score.f1);
+
+			if (++this.pendingRows == FLUSH_ROWS) {
+				this.flush();
+			}
+		}
+	}
+
+	/**
+	 * Write all pending rows.
+	 *
+	 * @throws IOException iff data cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		this.scenarios.flush();
+		this.combinations.flush();
+		for (var column : this.pending.entrySet()) {
+			ByteBuffer buffer = column.getValue();
+			buffer.flip();
+			try (FileChannel channel = FileChannel.open(this.columnFile(column.getKey()), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			buffer.clear();
+		}
+		this.pendingRows = 0;
+	}
+
+	/**
+	 * Find the best rating combination by mean F1 for each layer (over all
+	 * scenarios). Undefined F1 scores count as {@code 0}. As every rating
+	 * combination ranks the same paths, only the paths of one rank are compared;
+	 * scores of complete explorations ({@link PathView#EXPLORATION}) are no
+	 * rating combination and will be ignored. Only the latest rows of each path
+	 * are considered.
+	 *
+	 * @param rank the rank of the paths that shall be considered (e.g. {@code 0}
+	 *             for the best rated path of each combination)
+	 * @return (best combination, mean F1) by layer ({@link #ALL_LAYERS} for the
+	 *         score of all layers)
+	 * @throws IOException iff the store cannot be read
+	 */
+	public synchronized Map<Integer, Tuple2<String, Double>> findBestCombinationByMeanF1(int rank) throws IOException {
+		if (rank < 0) {
+			throw new IllegalArgumentException("Rank has to be >= 0: " + rank);
+		}
+		this.flush();
+
+		IntBuffer scenarioColumn = this.readInts(SCENARIO);
+		IntBuffer combinationColumn = this.readInts(COMBINATION);
+		IntBuffer rankColumn = this.readInts(RANK);
+		IntBuffer layerColumn = this.readInts(LAYER);
+		DoubleBuffer f1Column = this.readDoubles(F1);
+
+		int rows = Math.min(Math.min(Math.min(scenarioColumn.limit(), combinationColumn.limit()), rankColumn.limit()), Math.min(layerColumn.limit(), f1Column.limit()));
+		int maxLayer = ALL_LAYERS;
+		for (int row = 0; row < rows; row++) {
+			maxLayer = Math.max(maxLayer, layerColumn.get(row));
+		}
+
+		// Slot 0 is ALL_LAYERS
+		int numberOfCombinations = this.combinations.size();
+		int layers = maxLayer + 2;
+		double[] sums = new double[layers * numberOfCombinations];
+		int[] counts = new int[layers * numberOfCombinations];
+		// (scenario, combination) of the paths whose latest rows have been found
+		Set<Long> found = new HashSet<>();
+		boolean latest = false;
+		for (int row = rows - 1; row >= 0; row--) {
+			if (layerColumn.get(row) == ALL_LAYERS) {
+				// The rows of a path end with ALL_LAYERS .. the preceding rows belong to it.
+				// Views on complete explorations have rank -1 .. thus, they are skipped as well
+				latest = rankColumn.get(row) == rank && found.add(((long) scenarioColumn.get(row) << 32) | combinationColumn.get(row));
+			}
+			if (!latest) {
+				continue;
+			}
+			int slot = (layerColumn.get(row) + 1) * numberOfCombinations + combinationColumn.get(row);
+			double f1 = f1Column.get(row);
+			sums[slot] += Double.isNaN(f1) ? 0 : f1;
+			counts[slot]++;
+		}
+
+		Map<Integer, Tuple2<String, Double>> result = new TreeMap<>();
+		for (int layer = 0; layer < layers; layer++) {
+			int best = -1;
+			double bestMean = Double.NEGATIVE_INFINITY;
+			for (int combination = 0; combination < numberOfCombinations; combination++) {
+				int slot = layer * numberOfCombinations + combination;
+				if (counts[slot] != 0 && sums[slot] / counts[slot] > bestMean) {
+					best = combination;
+					bestMean = sums[slot] / counts[slot];
+				}
+			}
+			if (best != -1) {
+				result.put(layer - 1, Tuple2.of(this.combinations.decode(best), bestMean));
+			}
+		}
+		return result;
+	}
+
+	private Path columnFile(String column) {
+		return this.directory.resolve(column + (ResultStore.isDoubleColumn(column) ? ".double" : ".int"));
+	}
+
+	private static boolean isDoubleColumn(String column) {
+		return Arrays.asList(DOUBLE_COLUMNS).contains(column);
+	}
+
+	private static int bytesPerRow(String column) {
+		return ResultStore.isDoubleColumn(column) ? Double.BYTES : Integer.BYTES;
+	}
+
+	private IntBuffer readInts(String column) throws IOException {
+		return this.map(column).asIntBuffer();
+	}
+
+	private DoubleBuffer readDoubles(String column) throws IOException {
+		return this.map(column).asDoubleBuffer();
+	}
+
+	private ByteBuffer map(String column) throws IOException {
+		Path file = this.columnFile(column);
+		if (!Files.exists(file)) {
+			return ByteBuffer.allocate(0);
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.flush();
+	}
+
+	private static final class Dictionary {
+		private final Path file;
+		private final Map<String, Integer> ids = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+		private final List<String> pending = new ArrayList<>();
+
+		private Dictionary(Path file) throws IOException {
+			this.file = file;
+			if (Files.exists(file)) {
+				for (String value : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+					this.ids.put(value, this.values.size());
+					this.values.add(value);
+				}
+			}
+		}
+
+		private int encode(String value) {
+			// Values are stored line by line
+			String escaped = value.replace('\n', ' ').replace('\r', ' ');
+			Integer id = this.ids.get(escaped);
+			if (id == null) {
+				id = this.values.size();
+				this.ids.put(escaped, id);
+				this.values.add(escaped);
+				this.pending.add(escaped);
+			}
+			return id;
+		}
+
+		private String decode(int id) {
+			return this.values.get(id);
+		}
+
+		private int size() {
+			return this.values.size();
+		}
+
+		private void flush() throws IOException {
+			if (this.pending.isEmpty()) {
+				return;
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				for (String value : this.pending) {
+					writer.write(value);
+					writer.newLine();
+				}
+			}
+			this.pending.clear();
+		}
+	}
+}
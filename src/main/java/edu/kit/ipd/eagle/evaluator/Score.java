@@ -33,6 +33,20 @@ public final class Score implements Comparable<Score> {
 	 * False Negative
 	 */
 	public final int fn;
+	/**
+	 * The confidence interval of {@link #precision} ({@code null} iff not
+	 * calculated).
+	 */
+	public final ConfidenceInterval precisionInterval;
+	/**
+	 * The confidence interval of {@link #recall} ({@code null} iff not
+	 * calculated).
+	 */
+	public final ConfidenceInterval recallInterval;
+	/**
+	 * The confidence interval of {@link #f1} ({@code null} iff not calculated).
+	 */
+	public final ConfidenceInterval f1Interval;
 
 	/**
 	 * Create score wrapper.
@@ -42,12 +56,31 @@ public final class Score implements Comparable<Score> {
 	 * @param fn false negative
 	 */
 	public Score(int tp, int fp, int fn) {
+		this(tp, fp, fn, null, null, null);
+	}
+
+	private Score(int tp, int fp, int fn, ConfidenceInterval precisionInterval, ConfidenceInterval recallInterval, ConfidenceInterval f1Interval) {
 		this.tp = tp;
 		this.fp = fp;
 		this.fn = fn;
 		this.precision = 1.0 * tp / (tp + fp);
 		this.recall = 1.0 * tp / (tp + fn);
 		this.f1 = 2 * this.precision * this.recall / (this.precision + this.recall);
+		this.precisionInterval = precisionInterval;
+		this.recallInterval = recallInterval;
+		this.f1Interval = f1Interval;
+	}
+
+	/**
+	 * Create a copy of this score with confidence intervals.
+	 *
+	 * @param precisionInterval the confidence interval of {@link #precision}
+	 * @param recallInterval    the confidence interval of {@link #recall}
+	 * @param f1Interval        the confidence interval of {@link #f1}
+	 * @return the new score
+	 */
+	public Score withConfidence(ConfidenceInterval precisionInterval, ConfidenceInterval recallInterval, ConfidenceInterval f1Interval) {
+		return new Score(this.tp, this.fp, this.fn, precisionInterval, recallInterval, f1Interval);
 	}
 
 	@Override
@@ -55,16 +88,26 @@ public final class Score implements Comparable<Score> {
 		String p = String.format("%.2f", this.precision * 100);
 		String r = String.format("%.2f", this.recall * 100);
 		String f = String.format("%.2f", this.f1 * 100);
-		return String.format("P: %s%%, R: %s%%, F1: %s%%", p, r, f);
+		if (this.f1Interval == null) {
+			return String.format("P: %s%%, R: %s%%, F1: %s%%", p, r, f);
+		}
+		return String.format("P: %s%% %s, R: %s%% %s, F1: %s%% %s", p, this.precisionInterval, r, this.recallInterval, f, this.f1Interval);
 	}
 
 	@Override
 	public int compareTo(Score o) {
-		boolean isNaN = Double.isNaN(this.f1);
-		boolean otherIsNaN = Double.isNaN(o.f1);
+		return Score.compare(this.precision, this.recall, this.f1, o.precision, o.recall, o.f1);
+	}
+
+	/**
+	 * Compare two scores by their metrics (see {@link #compareTo(Score)}).
+	 */
+	static int compare(double precision, double recall, double f1, double otherPrecision, double otherRecall, double otherF1) {
+		boolean isNaN = Double.isNaN(f1);
+		boolean otherIsNaN = Double.isNaN(otherF1);
 
 		if (isNaN && otherIsNaN) {
-			return Double.compare(Math.max(this.precision, this.recall), Math.max(o.precision, o.recall));
+			return Double.compare(Math.max(precision, recall), Math.max(otherPrecision, otherRecall));
 		}
 		if (isNaN) {
 			return -1;
@@ -72,7 +115,7 @@ public final class Score implements Comparable<Score> {
 		if (otherIsNaN) {
 			return 1;
 		}
-		return Double.compare(this.f1, o.f1);
+		return Double.compare(f1, otherF1);
 	}
 
 	@Override
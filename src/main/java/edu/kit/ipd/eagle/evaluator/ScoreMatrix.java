@@ -0,0 +1,171 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The raw score of a path as primitive arrays: true positives, false positives
+ * and false negatives for each layer and for all layers (last element).
+ * Precision, recall and F1 are derived on demand; {@link Score} objects are
+ * only created iff requested (e.g. for output or confidence intervals).
+ */
+final class ScoreMatrix {
+	private int[] tp;
+	private int[] fp;
+	private int[] fn;
+
+	private ScoreMatrix() {
+		// NOP (for deserialization)
+	}
+
+	/**
+	 * Create a new score matrix.
+	 *
+	 * @param hits         the hits (distinct good hypotheses) of each layer
+	 * @param bad          the distinct bad hypotheses of each layer (same length as
+	 *                     hits)
+	 * @param possibleHits the number of good hypotheses of each layer (at least as
+	 *                     many layers as hits)
+	 */
+	ScoreMatrix(int[] hits, int[] bad, int[] possibleHits) {
+		int layers = hits.length;
+		this.tp = new int[layers + 1];
+		this.fp = new int[layers + 1];
+		this.fn = new int[layers + 1];
+		for (int i = 0; i < layers; i++) {
+			this.tp[i] = hits[i];
+			this.fp[i] = bad[i];
+			this.fn[i] = possibleHits[i] - hits[i];
+			this.tp[layers] += hits[i];
+			this.fp[layers] += bad[i];
+		}
+		int allPossibleHits = 0;
+		for (int possible : possibleHits) {
+			allPossibleHits += possible;
+		}
+		this.fn[layers] = allPossibleHits - this.tp[layers];
+	}
+
+	/**
+	 * Create a matrix with the same hits and bad hypotheses but another number of
+	 * good hypotheses (i.e., other false negatives).
+	 *
+	 * @param possibleHits the number of good hypotheses of each layer (missing
+	 *                     layers count as 0)
+	 * @return the new matrix
+	 */
+	ScoreMatrix withPossibleHits(int[] possibleHits) {
+		int layers = this.layers();
+		return new ScoreMatrix(Arrays.copyOf(this.tp, layers), Arrays.copyOf(this.fp, layers), Arrays.copyOf(possibleHits, Math.max(layers, possibleHits.length)));
+	}
+
+	/**
+	 * Get the number of scored layers.
+	 *
+	 * @return the number of layers
+	 */
+	int layers() {
+		return this.tp.length - 1;
+	}
+
+	/**
+	 * Get the true positives of a layer.
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the true positives
+	 */
+	int tp(int layer) {
+		return this.tp[layer];
+	}
+
+	/**
+	 * Get the false positives of a layer.
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the false positives
+	 */
+	int fp(int layer) {
+		return this.fp[layer];
+	}
+
+	/**
+	 * Get the false negatives of a layer.
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the false negatives
+	 */
+	int fn(int layer) {
+		return this.fn[layer];
+	}
+
+	/**
+	 * The precision of a layer: tp/(tp+fp).
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the precision ({@code NaN} iff undefined)
+	 */
+	double precision(int layer) {
+		return 1.0 * this.tp[layer] / (this.tp[layer] + this.fp[layer]);
+	}
+
+	/**
+	 * The recall of a layer: tp/(tp+fn).
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the recall ({@code NaN} iff undefined)
+	 */
+	double recall(int layer) {
+		return 1.0 * this.tp[layer] / (this.tp[layer] + this.fn[layer]);
+	}
+
+	/**
+	 * The F1 score of a layer.
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the F1 score ({@code NaN} iff undefined)
+	 */
+	double f1(int layer) {
+		double precision = this.precision(layer);
+		double recall = this.recall(layer);
+		return 2 * precision * recall / (precision + recall);
+	}
+
+	/**
+	 * Compare the scores of all layers (see {@link Score#compareTo(Score)}).
+	 *
+	 * @param other the other matrix
+	 * @return the comparison result
+	 */
+	int compareTotal(ScoreMatrix other) {
+		int a = this.layers();
+		int b = other.layers();
+		return Score.compare(this.precision(a), this.recall(a), this.f1(a), other.precision(b), other.recall(b), other.f1(b));
+	}
+
+	/**
+	 * Create a score view of a layer.
+	 *
+	 * @param layer the layer ({@link #layers()} for all layers)
+	 * @return the score
+	 */
+	Score toScore(int layer) {
+		return new Score(this.tp[layer], this.fp[layer], this.fn[layer]);
+	}
+
+	/**
+	 * Create the score views of all layers.
+	 *
+	 * @param bootstrap the bootstrap for confidence intervals (may be
+	 *                  {@code null})
+	 * @return the scores for each layer and the score of all layers as last element
+	 */
+	List<Score> toScores(Bootstrap bootstrap) {
+		List<Score> scores = new ArrayList<>(this.tp.length);
+		for (int i = 0; i < this.tp.length; i++) {
+			Score score = this.toScore(i);
+			scores.add(bootstrap == null ? score : bootstrap.apply(score));
+		}
+		return scores;
+	}
+}
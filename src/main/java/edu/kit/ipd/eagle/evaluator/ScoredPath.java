@@ -0,0 +1,105 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The raw score (see {@link ScoreMatrix}) of a {@link PathView}. In contrast to
+ * the {@link PathView} itself, a scored path does not reference any exploration
+ * data and can be stored (see {@link StatisticsCheckpoint}).
+ */
+final class ScoredPath {
+	/**
+	 * The version of the stored form (part of the keys of checkpoints and cached
+	 * results).
+	 */
+	static final String FORMAT = "2";
+
+	private String name;
+	private String id;
+	private String combination;
+	private int rank;
+	private ScoreMatrix scores;
+
+	// Score views (created on first request)
+	private transient Bootstrap viewsBootstrap;
+	private transient List<Score> views;
+
+	private ScoredPath() {
+		// NOP (for deserialization)
+	}
+
+	/**
+	 * Create a new scored path.
+	 *
+	 * @param view   the scored view
+	 * @param scores the scores of the view (see
+	 *               {@link Evaluator#score(PathView, boolean, int[])})
+	 */
+	ScoredPath(PathView view, ScoreMatrix scores) {
+		this.name = view.getName();
+		this.id = view.getId();
+		this.combination = view.getCombination();
+		this.rank = view.getRank();
+		this.scores = scores;
+	}
+
+	String getName() {
+		return this.name;
+	}
+
+	String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Get the combination of the path (prefixed by {@code no-hyp-} for pseudo
+	 * hypotheses).
+	 *
+	 * @return the combination
+	 */
+	String getCombination() {
+		return (this.name.contains("no-hyp") ? "no-hyp-" : "") + this.combination;
+	}
+
+	int getRank() {
+		return this.rank;
+	}
+
+	ScoreMatrix getScores() {
+		return this.scores;
+	}
+
+	/**
+	 * Create a copy of the path whose scores are based on another number of good
+	 * hypotheses (see {@link ScoreMatrix#withPossibleHits(int[])}).
+	 *
+	 * @param possibleHits the number of good hypotheses of each layer
+	 * @return the updated path
+	 */
+	ScoredPath withPossibleHits(int[] possibleHits) {
+		ScoredPath path = new ScoredPath();
+		path.name = this.name;
+		path.id = this.id;
+		path.combination = this.combination;
+		path.rank = this.rank;
+		path.scores = this.scores.withPossibleHits(possibleHits);
+		return path;
+	}
+
+	/**
+	 * Get the score views of the path. The views are created on the first request
+	 * and shared afterwards (as long as the same bootstrap is requested).
+	 *
+	 * @param bootstrap the bootstrap for confidence intervals (may be
+	 *                  {@code null})
+	 * @return the scores for each layer and the score of all layers as last element
+	 */
+	List<Score> toScores(Bootstrap bootstrap) {
+		if (this.views == null || this.viewsBootstrap != bootstrap) {
+			this.views = Collections.unmodifiableList(this.scores.toScores(bootstrap));
+			this.viewsBootstrap = bootstrap;
+		}
+		return this.views;
+	}
+}
@@ -6,20 +6,23 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.fuchss.tools.tuple.Tuple2;
+import org.fuchss.tools.tuple.Tuple3;
 
 import edu.kit.ipd.eagle.impl.xplore.rating.HypothesesSelectionFunction;
 import edu.kit.ipd.eagle.impl.xplore.rating.LayerCombination;
 import edu.kit.ipd.eagle.impl.xplore.rating.LayerEntryEvaluation;
 import edu.kit.ipd.eagle.impl.xplore.rating.NormalizedAggregate;
-import edu.kit.ipd.eagle.port.util.Serialize;
 import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
 import edu.kit.ipd.eagle.port.xplore.IPath;
-import edu.kit.ipd.eagle.port.xplore.dto.ExplorationResultDTO;
 
 /**
  * Helper class to generate statistics for evaluation.
@@ -28,10 +31,35 @@ import edu.kit.ipd.eagle.port.xplore.dto.ExplorationResultDTO;
  *
  */
 public final class Statistics {
+	private static final String SCORE_HEADER = "Precision;Precision CI Low;Precision CI High;Recall;Recall CI Low;Recall CI High;F1;F1 CI Low;F1 CI High;";
+
+	/**
+	 * All rating combinations (selector, layer entry evaluation, layer
+	 * combination) by name.
+	 */
+	private static final Map<String, Tuple3<HypothesesSelectionFunction, LayerEntryEvaluation, LayerCombination>> RATINGS = Statistics.createRatings();
+	/**
+	 * All units of an exploration file: the rating combinations and the complete
+	 * exploration.
+	 */
+	private static final List<String> UNITS = Stream.concat(RATINGS.keySet().stream(), Stream.of(PathView.EXPLORATION)).collect(Collectors.toList());
+
 	private Statistics() {
 		throw new IllegalAccessError();
 	}
 
+	private static Map<String, Tuple3<HypothesesSelectionFunction, LayerEntryEvaluation, LayerCombination>> createRatings() {
+		Map<String, Tuple3<HypothesesSelectionFunction, LayerEntryEvaluation, LayerCombination>> ratings = new LinkedHashMap<>();
+		for (var selector : HypothesesSelectionFunction.values()) {
+			for (var le : LayerEntryEvaluation.values()) {
+				for (var lc : LayerCombination.values()) {
+					ratings.put(selector + "-" + le + "-" + lc, Tuple3.of(selector, le, lc));
+				}
+			}
+		}
+		return ratings;
+	}
+
 	/**
 	 * Generate statistics by exploration file / dir and evaluation file.
 	 *
@@ -42,6 +70,30 @@ public final class Statistics {
 	 */
 	@Deprecated(forRemoval = false)
 	public static void generateStats(File explorationFileOrDir, File evalFile) {
+		Statistics.generateStats(explorationFileOrDir, evalFile, Configuration.DEFAULT);
+	}
+
+	/**
+	 * Generate statistics by exploration file / dir and evaluation file.
+	 *
+	 * @param explorationFileOrDir the exploration file or directory
+	 * @param evalFile             the evaluation file ({@link EvaluationData})
+	 * @param configuration        the configuration for scoring
+	 */
+	public static void generateStats(File explorationFileOrDir, File evalFile, Configuration configuration) {
+		Statistics.generateStats(explorationFileOrDir, evalFile, configuration, null);
+	}
+
+	/**
+	 * Generate statistics by exploration file / dir and evaluation file.
+	 * Additionally, all scores will be appended to a {@link ResultStore}.
+	 *
+	 * @param explorationFileOrDir the exploration file or directory
+	 * @param evalFile             the evaluation file ({@link EvaluationData})
+	 * @param configuration        the configuration for scoring
+	 * @param store                the store for the scores (may be {@code null})
+	 */
+	public static void generateStats(File explorationFileOrDir, File evalFile, Configuration configuration, ResultStore store) {
 		System.err.println("Writing Stat file ..");
 		Evaluator evaluator = null;
 		try {
@@ -50,40 +102,226 @@ public final class Statistics {
 			System.err.println("Cannot load file: " + e);
 			return;
 		}
+		evaluator.setConfiguration(configuration);
 
-		List<File> toScore = explorationFileOrDir.isDirectory() //
-				? Arrays.asList(explorationFileOrDir.listFiles(f -> !f.isDirectory() && f.getName().endsWith(".json") && !f.getName().endsWith(".eval.json")))
-				: List.of(explorationFileOrDir);
+		List<File> toScore = Statistics.findFilesToScore(explorationFileOrDir);
 
-		// Find all possible hits by layer and summed
-		List<Integer> allPossibleHitsPerLayer = IntStream.range(0, evaluator.findNumOfLayers()).mapToObj(evaluator::getGoodHypothesesCount).collect(Collectors.toList());
-		int allPossibleHits = allPossibleHitsPerLayer.stream().mapToInt(h -> h).sum();
+		// Counted stats .. (units completed by previous runs will be reused)
+		var checkpoint = Statistics.openCheckpoint(evalFile, configuration);
+		var paths = Statistics.scorePaths(explorationFileOrDir.getAbsolutePath(), toScore, evalFile, evaluator, checkpoint);
+		Bootstrap bootstrap = configuration.createBootstrap();
+		Statistics.storeStats(Statistics.sortByScore(paths), bootstrap, evalFile, explorationFileOrDir);
 
-		// Counted stats ..
-		List<Tuple2<String, List<Score>>> fileXScores = Statistics.createScores(Statistics.extractExplorationResults(explorationFileOrDir.getAbsolutePath(), toScore), evaluator,
-				allPossibleHitsPerLayer, allPossibleHits);
-		Statistics.storeStats(fileXScores, evalFile, explorationFileOrDir);
+		if (store != null) {
+			try {
+				Statistics.storeResults(store, Statistics.getScenario(explorationFileOrDir, evalFile), paths, bootstrap);
+			} catch (IOException e) {
+				System.err.println("Cannot write to result store: " + e);
+			}
+		}
 
 		// Generate CSV stats
 		if (evalFile != null) {
 			try {
-				Statistics.generateCSV(evalFile, evaluator, toScore);
+				Statistics.generateCSV(evalFile, evaluator, paths, bootstrap);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
-	private static void generateCSV(File evalFile, Evaluator evaluator, List<File> toScore) throws IOException {
+	/**
+	 * Generate a comparison of multiple configurations by exploration file / dir
+	 * and evaluation file. The explorations and the evaluation file will be loaded
+	 * only once. The comparison will be stored next to the evaluation file
+	 * ({@code .sweep.csv} and {@code .sweep.txt}).
+	 *
+	 * @param explorationFileOrDir the exploration file or directory
+	 * @param evalFile             the evaluation file ({@link EvaluationData})
+	 * @param configurations       the configurations that shall be compared
+	 */
+	public static void generateSweep(File explorationFileOrDir, File evalFile, List<Configuration> configurations) {
+		System.err.println("Writing Sweep file for " + configurations.size() + " configurations ..");
+		Evaluator evaluator = null;
+		try {
+			evaluator = new Evaluator(null, evalFile);
+		} catch (IOException e) {
+			System.err.println("Cannot load file: " + e);
+			return;
+		}
+
+		int layers = evaluator.findNumOfLayers();
+		int[] allPossibleHitsPerLayer = IntStream.range(0, layers).map(evaluator::getGoodHypothesesCount).toArray();
+
+		// Paths do not depend on the configuration .. store no paths while sweeping
+		var paths = Statistics.extractExplorationResults(explorationFileOrDir.getAbsolutePath(), Statistics.findFilesToScore(explorationFileOrDir), Configuration.DEFAULT);
+
+		StringBuilder csv = new StringBuilder();
+		csv.append(Configuration.KEY_MAX_HYPOTHESES_PER_PSEUDO_HYP).append(";").append(Configuration.KEY_MAX_HYPOTHESES_PER_LEAF).append(";").append(Configuration.KEY_SKIP_IFF_CONFIDENCE_LESS).append(";");
+		csv.append("Scenario;").append(Statistics.SCORE_HEADER);
+		for (int i = 0; i < layers; i++) {
+			csv.append("Layer-").append(i).append(" F1;");
+		}
+		csv.append("\n");
+
+		StringBuilder summary = new StringBuilder();
+		for (Configuration configuration : configurations) {
+			evaluator.setConfiguration(configuration);
+			Bootstrap bootstrap = configuration.createBootstrap();
+			var scored = Statistics.sortByScore(Statistics.score(paths, evaluator, allPossibleHitsPerLayer));
+			if (!scored.isEmpty()) {
+				var best = scored.get(0);
+				summary.append(configuration).append(": ").append(best.getName()).append(" Score: ").append(Statistics.getTotal(best, bootstrap)).append("\n");
+			}
+
+			for (var path : scored) {
+				var scores = path.getScores();
+				csv.append(configuration.getMaxHypothesesPerPseudoHyp()).append(";").append(configuration.getMaxHypothesesPerLeaf()).append(";")
+						.append(configuration.getSkipIffConfidenceLess() == null ? "" : configuration.getSkipIffConfidenceLess()).append(";");
+				csv.append(path.getName()).append(";");
+				csv.append(Statistics.formatScore(Statistics.getTotal(path, bootstrap)));
+				for (int i = 0; i < layers; i++) {
+					csv.append(i < scores.layers() ? String.format("%.4f", scores.f1(i)) : "").append(";");
+				}
+				csv.append("\n");
+			}
+		}
+
+		try (FileWriter fw = new FileWriter(new File(evalFile.getAbsolutePath() + ".sweep.csv"))) {
+			fw.write(csv.toString());
+		} catch (IOException e) {
+			System.err.println("Cannot write file: " + e);
+		}
+
+		try (FileWriter fw = new FileWriter(new File(evalFile.getAbsolutePath() + ".sweep.txt"))) {
+			fw.write(summary.toString());
+		} catch (IOException e) {
+			System.err.println("Cannot write file: " + e);
+		}
+	}
+
+	/**
+	 * Generate the extended metrics (see {@link MetricEngine}) by exploration file
+	 * / dir and evaluation file. The metrics will be stored next to the evaluation
+	 * file ({@code .metrics.csv}).
+	 *
+	 * @param explorationFileOrDir the exploration file or directory
+	 * @param evalFile             the evaluation file ({@link EvaluationData})
+	 * @param configuration        the configuration for scoring
+	 */
+	public static void generateMetrics(File explorationFileOrDir, File evalFile, Configuration configuration) {
+		System.err.println("Writing Metrics file ..");
+		Evaluator evaluator = null;
+		try {
+			evaluator = new Evaluator(null, evalFile);
+		} catch (IOException e) {
+			System.err.println("Cannot load file: " + e);
+			return;
+		}
+		evaluator.setConfiguration(configuration);
+
+		MetricEngine engine = new MetricEngine(evaluator);
+		var paths = Statistics.extractExplorationResults(explorationFileOrDir.getAbsolutePath(), Statistics.findFilesToScore(explorationFileOrDir), configuration);
+
+		int k = configuration.getRankingCutoff();
+		try (FileWriter fw = new FileWriter(new File(evalFile.getAbsolutePath() + ".metrics.csv"))) {
+			fw.append("Scenario;Layer;Precision;Recall;F1;Weighted Precision;Weighted Recall;Weighted F1;P@" + k + ";MRR;nDCG@" + k + ";\n");
+			for (var path : paths) {
+				// TODO Check NoHyp works ..
+				var metrics = engine.calculate(path, path.getName().contains("no-hyp"));
+				for (int i = 0; i < metrics.size(); i++) {
+					var m = metrics.get(i);
+					fw.append(path.getName()).append(";").append(i == metrics.size() - 1 ? "All" : String.valueOf(i)).append(";");
+					fw.append(String.format("%.4f;%.4f;%.4f;%.4f;%.4f;%.4f;%.4f;%.4f;%.4f;\n", m.score.precision, m.score.recall, m.score.f1, m.weightedPrecision, m.weightedRecall, m.weightedF1,
+							m.precisionAtK, m.mrr, m.ndcg));
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Cannot write file: " + e);
+		}
+	}
+
+	private static String getScenario(File explorationFileOrDir, File evalFile) {
+		String name = JsonFiles.getName(evalFile == null ? explorationFileOrDir : evalFile);
+		return name.endsWith(".eval.json") ? name.substring(0, name.length() - ".eval.json".length()) : name;
+	}
+
+	private static void storeResults(ResultStore store, String scenario, List<ScoredPath> paths, Bootstrap bootstrap) throws IOException {
+		for (var path : paths) {
+			store.append(scenario, path.getCombination(), path.getRank(), path.toScores(bootstrap));
+		}
+		store.flush();
+	}
+
+	/**
+	 * Score all exploration files of a scenario. Only the scores will be kept, the
+	 * exploration data can be released afterwards. Units completed by previous
+	 * runs will be reused (see {@link StatisticsCheckpoint}).
+	 *
+	 * @param explorationFileOrDir the exploration file or directory
+	 * @param evalFile             the evaluation file ({@link EvaluationData})
+	 * @param configuration        the configuration for scoring
+	 * @return (combination, rank, scores) for each scored path
+	 * @throws IOException iff the evaluation file cannot be loaded
+	 */
+	static List<Tuple3<String, Integer, List<Score>>> scoreScenario(File explorationFileOrDir, File evalFile, Configuration configuration) throws IOException {
+		var paths = Statistics.scoreAll(explorationFileOrDir, evalFile, configuration);
+		Bootstrap bootstrap = configuration.createBootstrap();
+
+		List<Tuple3<String, Integer, List<Score>>> result = new ArrayList<>();
+		for (var path : paths) {
+			result.add(Tuple3.of(path.getCombination(), path.getRank(), path.toScores(bootstrap)));
+		}
+		return result;
+	}
+
+	/**
+	 * Score all exploration files of a scenario. Units completed by previous runs
+	 * will be reused (see {@link StatisticsCheckpoint}).
+	 *
+	 * @param explorationFileOrDir the exploration file or directory
+	 * @param evalFile             the evaluation file ({@link EvaluationData})
+	 * @param configuration        the configuration for scoring
+	 * @return the scored paths
+	 * @throws IOException iff the evaluation file cannot be loaded
+	 */
+	static List<ScoredPath> scoreAll(File explorationFileOrDir, File evalFile, Configuration configuration) throws IOException {
+		Evaluator evaluator = new Evaluator(null, evalFile);
+		evaluator.setConfiguration(configuration);
+
+		List<File> toScore = Statistics.findFilesToScore(explorationFileOrDir);
+		var checkpoint = Statistics.openCheckpoint(evalFile, configuration);
+		return Statistics.scorePaths(explorationFileOrDir.getAbsolutePath(), toScore, evalFile, evaluator, checkpoint);
+	}
+
+	/**
+	 * Score all paths of a single exploration file (without checkpoint).
+	 *
+	 * @param explorationFile the exploration file
+	 * @param evalFile        the evaluation file ({@link EvaluationData})
+	 * @param configuration   the configuration for scoring
+	 * @return the scored paths
+	 * @throws IOException iff the evaluation file cannot be loaded
+	 */
+	static List<ScoredPath> scoreFile(File explorationFile, File evalFile, Configuration configuration) throws IOException {
+		Evaluator evaluator = new Evaluator(null, evalFile);
+		evaluator.setConfiguration(configuration);
+		return Statistics.scorePaths(explorationFile.getAbsoluteFile().getParent(), List.of(explorationFile), evalFile, evaluator, null);
+	}
+
+	private static List<File> findFilesToScore(File explorationFileOrDir) {
+		return explorationFileOrDir.isDirectory() //
+				? Arrays.asList(explorationFileOrDir.listFiles(f -> JsonFiles.isJson(f) && !JsonFiles.getName(f).endsWith(".eval.json")))
+				: List.of(explorationFileOrDir);
+	}
+
+	private static void generateCSV(File evalFile, Evaluator evaluator, List<ScoredPath> paths, Bootstrap bootstrap) throws IOException {
 		File target = new File(evalFile.getAbsolutePath() + ".stats.csv");
 		try (FileWriter fw = new FileWriter(target)) {
-			var paths = Statistics.extractExplorationResults("Scenario", toScore);
-
 			int layers = evaluator.findNumOfLayers();
-			Statistics.generateCSVHeader(fw, layers, paths.get(0).getSecond().getId());
+			Statistics.generateCSVHeader(fw, layers, paths.get(0).getId());
 			for (var path : paths) {
-				// TODO Check NoHyp works ..
-				Statistics.appendLine(layers, fw, path, evaluator, path.getFirst().contains("no-hyp"));
+				Statistics.appendLine(layers, fw, path, bootstrap);
 			}
 		}
 	}
@@ -103,47 +341,56 @@ public final class Statistics {
 		}
 		sb.append("# Bad;");
 
+		sb.append(Statistics.SCORE_HEADER);
+
 		sb.append("\n");
 
 		fw.append(sb.toString());
 	}
 
-	private static void appendLine(int layers, FileWriter fw, Tuple2<String, IExplorationResult> path, Evaluator evaluator, boolean isPseudoHypothesis) throws IOException {
-		var hitsXbadPerLayer = evaluator.getHitsWithBad(path.getSecond(), isPseudoHypothesis);
-
-		fw.append(path.getFirst()).append(";").append(Statistics.getScore(path.getSecond().getId())).append(";");
+	private static void appendLine(int layers, FileWriter fw, ScoredPath path, Bootstrap bootstrap) throws IOException {
+		ScoreMatrix scores = path.getScores();
+		fw.append(path.getName()).append(";").append(Statistics.getScore(path.getId())).append(";");
 
 		// Good values
-		int hits = 0;
-		for (int i = 0; i < hitsXbadPerLayer.size(); i++) {
-			int hit = hitsXbadPerLayer.get(i).getFirst();
-			fw.append(String.valueOf(hit)).append(";");
-			hits += hit;
+		for (int i = 0; i < scores.layers(); i++) {
+			fw.append(String.valueOf(scores.tp(i))).append(";");
 		}
 
-		for (int i = hitsXbadPerLayer.size(); i < layers; i++) {
+		for (int i = scores.layers(); i < layers; i++) {
 			fw.append(";");
 		}
 
-		fw.append(String.valueOf(hits)).append(";");
+		fw.append(String.valueOf(scores.tp(scores.layers()))).append(";");
 
 		// Bad Values
-		int bads = 0;
-		for (int i = 0; i < hitsXbadPerLayer.size(); i++) {
-			int bad = hitsXbadPerLayer.get(i).getSecond();
-			fw.append(String.valueOf(bad)).append(";");
-			bads += bad;
+		for (int i = 0; i < scores.layers(); i++) {
+			fw.append(String.valueOf(scores.fp(i))).append(";");
 		}
 
-		for (int i = hitsXbadPerLayer.size(); i < layers; i++) {
+		for (int i = scores.layers(); i < layers; i++) {
 			fw.append(";");
 		}
 
-		fw.append(String.valueOf(bads)).append(";");
+		fw.append(String.valueOf(scores.fp(scores.layers()))).append(";");
+
+		// Scores
+		fw.append(Statistics.formatScore(Statistics.getTotal(path, bootstrap)));
 
 		fw.append("\n");
 	}
 
+	private static String formatScore(Score score) {
+		return Statistics.formatScore(score.precision, score.precisionInterval) + Statistics.formatScore(score.recall, score.recallInterval) + Statistics.formatScore(score.f1, score.f1Interval);
+	}
+
+	private static String formatScore(double value, ConfidenceInterval interval) {
+		if (interval == null) {
+			return String.format("%.4f;;;", value);
+		}
+		return String.format("%.4f;%.4f;%.4f;", value, interval.lower, interval.upper);
+	}
+
 	private static String getScore(String inputText) {
 		int start = inputText.indexOf('(');
 		int end = inputText.indexOf(')');
@@ -154,48 +401,241 @@ public final class Statistics {
 		return String.format("%.4f", score);
 	}
 
-	private static List<Tuple2<String, IExplorationResult>> extractExplorationResults(String basePath, List<File> toScore) {
+	private static List<PathView> extractExplorationResults(String basePath, List<File> toScore, Configuration configuration) {
+		// Should contain the explored file and an optional no-hyp file ..
+		assert toScore.size() <= 2;
+		List<PathView> result = new ArrayList<>();
+
+		try (PathWriter writer = configuration.isStorePathsAsFiles() ? new PathWriter(new File(basePath), configuration.getPathStorage()) : null) {
+			for (File f : toScore) {
+				Statistics.extractExplorationResult(result, writer, f);
+			}
+		}
+
+		return result;
+	}
+
+	private static void extractExplorationResult(List<PathView> result, PathWriter writer, File f) {
+		IExplorationResult exploration = Statistics.loadExploration(f);
+		if (exploration == null) {
+			return;
+		}
+
+		List<IPath> paths = exploration.getPaths();
+
+		if (paths.size() != 1) {
+			// Find all other paths .. with ratings ..
+			List<PathView> ratedPaths = Statistics.generateRatings(writer, f.getName(), exploration.getId(), paths);
+			result.addAll(ratedPaths);
+		}
+
+		result.add(PathView.of(f.getName(), exploration));
+	}
+
+	private static IExplorationResult loadExploration(File f) {
+		try {
+			return JsonFiles.loadExploration(f);
+		} catch (IOException e) {
+			System.err.println("Cannot load file: " + e);
+			return null;
+		}
+	}
+
+	private static StatisticsCheckpoint openCheckpoint(File evalFile, Configuration configuration) {
+		if (evalFile == null || !evalFile.exists()) {
+			return null;
+		}
+		try {
+			return StatisticsCheckpoint.open(evalFile, configuration);
+		} catch (IOException e) {
+			System.err.println("Cannot load progress file .. scoring all paths: " + e);
+			return null;
+		}
+	}
+
+	private static ResultCache openResultCache(Configuration configuration) {
+		try {
+			return configuration.createResultCache();
+		} catch (IOException e) {
+			System.err.println("Cannot open result cache .. scoring without cache: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Score the paths of the exploration files unit by unit (one rating
+	 * combination of one file). Completed units are taken from the checkpoint or
+	 * the result cache (iff provided) as long as the values scored by the unit are
+	 * classified the same; only their false negatives are updated to the current
+	 * number of good hypotheses. Exploration files with only completed units will
+	 * not be loaded at all, unless paths shall be stored as files (the paths of
+	 * completed units are written again but not scored).
+	 */
+	private static List<ScoredPath> scorePaths(String basePath, List<File> toScore, File evalFile, Evaluator evaluator, StatisticsCheckpoint checkpoint) {
 		// Should contain the explored file and an optional no-hyp file ..
 		assert toScore.size() <= 2;
-		List<Tuple2<String, IExplorationResult>> result = new ArrayList<>();
+		Configuration configuration = evaluator.getConfiguration();
+		ResultCache cache = Statistics.openResultCache(configuration);
+		int[] allPossibleHitsPerLayer = IntStream.range(0, evaluator.findNumOfLayers()).map(evaluator::getGoodHypothesesCount).toArray();
+		List<Map<String, Classification>> classifications = evaluator.getEvaluationData().getClassificationsByValue();
+		List<ScoredPath> result = new ArrayList<>();
+
+		try (PathWriter writer = configuration.isStorePathsAsFiles() ? new PathWriter(new File(basePath), configuration.getPathStorage()) : null) {
+			for (File f : toScore) {
+				String fingerprint = checkpoint == null ? null : checkpoint.fingerprint(f);
+				String key = Statistics.getCacheKey(cache, f, configuration);
+
+				Map<String, List<ScoredPath>> units = new LinkedHashMap<>();
+				for (String combination : Statistics.UNITS) {
+					units.put(combination, Statistics.findUnit(checkpoint, cache, f, combination, fingerprint, key, classifications));
+				}
 
-		for (File f : toScore) {
-			IExplorationResult exploration;
+				IExplorationResult exploration = null;
+				if (units.containsValue(null) || writer != null) {
+					exploration = Statistics.loadExploration(f);
+					if (exploration == null) {
+						continue;
+					}
+				}
+
+				for (var unit : units.entrySet()) {
+					List<ScoredPath> scored = unit.getValue();
+					if (scored == null) {
+						List<Set<String>> values = new ArrayList<>();
+						scored = Statistics.score(Statistics.createViews(writer, f, exploration, unit.getKey()), evaluator, allPossibleHitsPerLayer, values);
+						Statistics.completeUnit(checkpoint, cache, f, unit.getKey(), fingerprint, key, Statistics.sort(values), classifications, scored);
+					} else {
+						if (writer != null) {
+							Statistics.createViews(writer, f, exploration, unit.getKey());
+						}
+						// The number of good hypotheses may have changed since the unit has been scored
+						scored = scored.stream().map(path -> path.withPossibleHits(allPossibleHitsPerLayer)).collect(Collectors.toList());
+					}
+					result.addAll(scored);
+				}
+				evaluator.releaseExploration();
+			}
+		}
+
+		return result;
+	}
+
+	private static String getCacheKey(ResultCache cache, File f, Configuration configuration) {
+		if (cache == null) {
+			return null;
+		}
+		try {
+			return cache.getKey(f, configuration);
+		} catch (IOException e) {
+			System.err.println("Cannot hash file .. scoring without cache: " + e);
+			return null;
+		}
+	}
+
+	private static List<ScoredPath> findUnit(StatisticsCheckpoint checkpoint, ResultCache cache, File f, String combination, String fingerprint, String key,
+			List<Map<String, Classification>> classifications) {
+		List<ScoredPath> scored = checkpoint == null ? null : checkpoint.get(f, combination, fingerprint, classifications);
+		if (scored != null || key == null) {
+			return scored;
+		}
+
+		List<List<String>> values = cache.getValues(key, combination);
+		if (values == null) {
+			return null;
+		}
+		String hash = ResultCache.hash(classifications, values);
+		scored = cache.get(key, combination, hash);
+		if (scored != null && checkpoint != null) {
 			try {
-				exploration = ExplorationResultDTO.load(f);
+				checkpoint.complete(f, combination, fingerprint, values, hash, scored);
 			} catch (IOException e) {
-				System.err.println("Cannot load file: " + e);
-				continue;
+				System.err.println("Cannot write progress file: " + e);
 			}
+		}
+		return scored;
+	}
 
-			List<IPath> paths = exploration.getPaths();
-
-			if (paths.size() != 1) {
-				// Find all other paths .. with ratings ..
-				List<Tuple2<String, IExplorationResult>> ratedPaths = Statistics.generateRatings(basePath, f.getName(), exploration.getId(), paths);
-				result.addAll(ratedPaths);
+	private static void completeUnit(StatisticsCheckpoint checkpoint, ResultCache cache, File f, String combination, String fingerprint, String key, List<List<String>> values,
+			List<Map<String, Classification>> classifications, List<ScoredPath> scored) {
+		if (checkpoint == null && key == null) {
+			return;
+		}
+		String hash = ResultCache.hash(classifications, values);
+		try {
+			if (checkpoint != null) {
+				checkpoint.complete(f, combination, fingerprint, values, hash, scored);
+			}
+			if (key != null) {
+				cache.put(key, combination, values, hash, scored);
 			}
+		} catch (IOException e) {
+			System.err.println("Cannot store scores of " + f.getName() + " (" + combination + "): " + e);
+		}
+	}
 
-			result.add(Tuple2.of(f.getName(), exploration));
+	/**
+	 * Create the views of all units (all rating combinations and the complete
+	 * exploration) of an exploration file.
+	 *
+	 * @param f           the exploration file
+	 * @param exploration the loaded exploration result of the file
+	 * @return the views
+	 */
+	static List<PathView> createViews(File f, IExplorationResult exploration) {
+		List<PathView> views = new ArrayList<>();
+		for (String combination : Statistics.UNITS) {
+			views.addAll(Statistics.createViews(null, f, exploration, combination));
+		}
+		return views;
+	}
+
+	private static List<PathView> createViews(PathWriter writer, File f, IExplorationResult exploration, String combination) {
+		var rating = Statistics.RATINGS.get(combination);
+		if (rating == null) {
+			return List.of(PathView.of(f.getName(), exploration));
+		}
 
+		List<IPath> paths = exploration.getPaths();
+		List<PathView> views = new ArrayList<>();
+		if (paths.size() != 1) {
+			// Find all other paths .. with ratings ..
+			Statistics.examineText(views, writer, f.getName(), exploration.getId(), rating.getFirst(), rating.getSecond(), rating.getThird(), paths);
 		}
+		return views;
+	}
 
+	private static List<ScoredPath> score(List<PathView> views, Evaluator evaluator, int[] allPossibleHitsPerLayer) {
+		return Statistics.score(views, evaluator, allPossibleHitsPerLayer, null);
+	}
+
+	private static List<ScoredPath> score(List<PathView> views, Evaluator evaluator, int[] allPossibleHitsPerLayer, List<Set<String>> values) {
+		List<ScoredPath> result = new ArrayList<>();
+		for (PathView view : views) {
+			// TODO Check NoHyp works ..
+			result.add(new ScoredPath(view, evaluator.score(view, view.getName().contains("no-hyp"), allPossibleHitsPerLayer, values)));
+		}
 		return result;
 	}
 
-	private static List<Tuple2<String, IExplorationResult>> generateRatings(String basePath, String key, String text, List<IPath> paths) {
-		List<Tuple2<String, IExplorationResult>> result = new ArrayList<>();
-		for (var selector : HypothesesSelectionFunction.values()) {
-			for (var le : LayerEntryEvaluation.values()) {
-				for (var lc : LayerCombination.values()) {
-					Statistics.examineText(result, basePath, key, text, selector, le, lc, paths);
-				}
-			}
+	private static List<List<String>> sort(List<Set<String>> values) {
+		List<List<String>> sorted = new ArrayList<>();
+		for (Set<String> layer : values) {
+			List<String> sortedLayer = new ArrayList<>(layer);
+			Collections.sort(sortedLayer);
+			sorted.add(sortedLayer);
+		}
+		return sorted;
+	}
+
+	private static List<PathView> generateRatings(PathWriter writer, String key, String text, List<IPath> paths) {
+		List<PathView> result = new ArrayList<>();
+		for (var rating : Statistics.RATINGS.values()) {
+			Statistics.examineText(result, writer, key, text, rating.getFirst(), rating.getSecond(), rating.getThird(), paths);
 		}
 		return result;
 	}
 
-	private static void examineText(List<Tuple2<String, IExplorationResult>> result, String basePath, String key, String text, //
+	private static void examineText(List<PathView> result, PathWriter writer, String key, String text, //
 			HypothesesSelectionFunction selector, LayerEntryEvaluation lEval, LayerCombination lComb, List<IPath> paths) {
 		var nam = new NormalizedAggregate(selector, lEval, lComb, 1E-8, 1 - 1E-8);
 		var scores = nam.ratePaths(paths);
@@ -204,66 +644,50 @@ public final class Statistics {
 				.mapToObj(i -> Tuple2.of(paths.get(i), scores.get(i))).sorted((a, b) -> Double.compare(a.getSecond(), b.getSecond())).collect(Collectors.toList());
 
 		int pad = String.valueOf(pathXscore.size() - 1).length();
+		String base = JsonFiles.stripCompression(key);
+		base = base.substring(0, base.length() - ".json".length());
+		String combination = base + "-" + selector + "-" + lEval + "-" + lComb;
 
 		for (int i = 0; i < pathXscore.size(); i++) {
 			var path = pathXscore.get(i);
 			String pathText = text + " (" + path.getSecond() + ")";
-			String name = key.substring(0, key.length() - ".json".length()) + "-Top-" + String.format("%0" + pad + "d", i) + "-" + selector + "-" + lEval + "-" + lComb + "-best.json";
-			result.add(Tuple2.of(name, path.getFirst().toExplorationResult(pathText)));
-
-			if (Configuration.STORE_PATHS_AS_FILES) {
-				try {
-					var mapper = Serialize.getObjectMapperForGetters(true);
-					var jsonGetter = mapper.writeValueAsString(path.getFirst().toExplorationResult(pathText));
-					try (var fw = new FileWriter(new File(basePath + File.separator + name))) {
-						fw.write(jsonGetter);
-					}
+			String name = base + "-Top-" + String.format("%0" + pad + "d", i) + "-" + selector + "-" + lEval + "-" + lComb + "-best.json";
+			PathView view = PathView.of(name, pathText, selector + "-" + lEval + "-" + lComb, i, path.getFirst());
+			result.add(view);
 
-				} catch (IOException e) {
-					System.err.println("Error while storing file .. " + e);
-				}
+			if (writer != null) {
+				writer.write(combination, view);
 			}
 		}
 
 	}
 
-	private static List<Tuple2<String, List<Score>>> createScores(List<Tuple2<String, IExplorationResult>> toScore, Evaluator evaluator, List<Integer> allPossibleHitsPerLayer, int allPossibleHits) {
-		List<Tuple2<String, List<Score>>> fileXScores = new ArrayList<>();
-
-		for (Tuple2<String, IExplorationResult> input : toScore) {
-			// TODO Check NoHyp works ..
-			var hitsXbadPerLayer = evaluator.getHitsWithBad(input.getSecond(), input.getFirst().contains("no-hyp"));
-			Tuple2<Integer, Integer> allHitsXallBad = Tuple2.of(//
-					hitsXbadPerLayer.stream().mapToInt(Tuple2::getFirst).sum(), //
-					hitsXbadPerLayer.stream().mapToInt(Tuple2::getSecond).sum()//
-			);
-			List<Score> scores = new ArrayList<>();
-
-			for (int i = 0; i < hitsXbadPerLayer.size(); i++) {
-				scores.add(Statistics.getScore(hitsXbadPerLayer.get(i).getFirst(), hitsXbadPerLayer.get(i).getSecond(), allPossibleHitsPerLayer.get(i)));
-			}
-			scores.add(Statistics.getScore(allHitsXallBad.getFirst(), allHitsXallBad.getSecond(), allPossibleHits));
-
-			fileXScores.add(Tuple2.of(input.getFirst(), scores));
-		}
-
-		Collections.sort(fileXScores, (a, b) -> b.getFirst().compareTo(a.getFirst()));
-		Collections.sort(fileXScores, (a, b) -> b.getSecond().get(b.getSecond().size() - 1).compareTo(a.getSecond().get(a.getSecond().size() - 1)));
-
-		return fileXScores;
+	/**
+	 * Sort scored paths by their total score (best first; equal scores by name in
+	 * descending order).
+	 *
+	 * @param paths the scored paths
+	 * @return the sorted paths (new list)
+	 */
+	static List<ScoredPath> sortByScore(List<ScoredPath> paths) {
+		List<ScoredPath> sorted = new ArrayList<>(paths);
+		sorted.sort((a, b) -> b.getName().compareTo(a.getName()));
+		sorted.sort((a, b) -> b.getScores().compareTotal(a.getScores()));
+		return sorted;
 	}
 
-	private static Score getScore(int hitCount, int badCount, int allHits) {
-		return new Score(hitCount, badCount, allHits - hitCount);
+	private static Score getTotal(ScoredPath path, Bootstrap bootstrap) {
+		List<Score> scores = path.toScores(bootstrap);
+		return scores.get(scores.size() - 1);
 	}
 
-	private static void storeStats(List<Tuple2<String, List<Score>>> fileXScores, File evalFile, File explorationFile) {
+	private static void storeStats(List<ScoredPath> paths, Bootstrap bootstrap, File evalFile, File explorationFile) {
 		StringBuilder resultString = new StringBuilder();
 		StringBuilder resultStringDetails = new StringBuilder();
 
-		for (var hit : fileXScores) {
-			var name = hit.getFirst();
-			var scores = hit.getSecond();
+		for (var path : paths) {
+			var name = path.getName();
+			var scores = path.toScores(bootstrap);
 			var score = scores.get(scores.size() - 1);
 			var subscores = scores.subList(0, scores.size() - 1);
 			resultString.append(name).append(" Score: ").append(score).append("\n");
@@ -0,0 +1,171 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.kit.ipd.eagle.port.util.Serialize;
+
+/**
+ * A progress file for statistics runs. Each completed unit (the scored paths of
+ * one rating combination of one exploration file) is appended as one JSON line
+ * as soon as it is completed. A restarted run skips all units whose fingerprint
+ * did not change. The fingerprint consists of size and modification time of the
+ * exploration file and the configuration. Besides, a unit stores the values
+ * scored by its paths and the hash of their classifications (see
+ * {@link ResultCache#hash(List, List)}); the unit is only reused iff these
+ * values are classified the same (classifications of other values do not
+ * matter).
+ */
+final class StatisticsCheckpoint {
+	private final File progressFile;
+	private final String configurationFingerprint;
+	private final ObjectMapper mapper;
+	private final ObjectWriter lineWriter;
+
+	// exploration file -> combination -> unit
+	private final Map<String, Map<String, Unit>> units = new HashMap<>();
+
+	private StatisticsCheckpoint(File progressFile, String configurationFingerprint) {
+		this.progressFile = progressFile;
+		this.configurationFingerprint = configurationFingerprint;
+		this.mapper = Serialize.getObjectMapper(true);
+		this.lineWriter = this.mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	/**
+	 * Open (or create) the checkpoint of an evaluation file (stored as
+	 * {@code <evalFile>.stats.progress}).
+	 *
+	 * @param evalFile      the evaluation file
+	 * @param configuration the configuration for scoring
+	 * @return the checkpoint
+	 * @throws IOException iff the progress file cannot be read
+	 */
+	static StatisticsCheckpoint open(File evalFile, Configuration configuration) throws IOException {
+		File progressFile = new File(evalFile.getAbsolutePath() + ".stats.progress");
+		StatisticsCheckpoint checkpoint = new StatisticsCheckpoint(progressFile, configuration + "|" + ScoredPath.FORMAT);
+		if (progressFile.exists()) {
+			checkpoint.load();
+		}
+		return checkpoint;
+	}
+
+	private void load() throws IOException {
+		int lines = 0;
+		int stored = 0;
+		for (String line : Files.readAllLines(this.progressFile.toPath(), StandardCharsets.UTF_8)) {
+			lines++;
+			Unit unit;
+			try {
+				unit = this.mapper.readValue(line, Unit.class);
+			} catch (IOException e) {
+				// Incomplete line (e.g. crash while writing) .. recompute the unit
+				continue;
+			}
+			Unit old = this.units.computeIfAbsent(unit.file, f -> new LinkedHashMap<>()).put(unit.combination, unit);
+			stored += old == null ? 1 : 0;
+		}
+
+		if (lines != stored) {
+			// Drop outdated and incomplete lines
+			this.rewrite();
+		}
+	}
+
+	private void rewrite() throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(this.progressFile.toPath(), StandardCharsets.UTF_8)) {
+			for (var unitsOfFile : this.units.values()) {
+				for (Unit unit : unitsOfFile.values()) {
+					writer.write(this.lineWriter.writeValueAsString(unit));
+					writer.newLine();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the fingerprint of an exploration file.
+	 *
+	 * @param explorationFile the exploration file
+	 * @return the fingerprint
+	 */
+	String fingerprint(File explorationFile) {
+		return explorationFile.length() + ":" + explorationFile.lastModified() + "|" + this.configurationFingerprint;
+	}
+
+	/**
+	 * Get the scored paths of a completed unit.
+	 *
+	 * @param explorationFile        the exploration file
+	 * @param combination            the rating combination
+	 * @param fingerprint            the current fingerprint of the file
+	 * @param classificationPerLayer the current classifications by value of each
+	 *                               layer (see
+	 *                               {@link EvaluationData#getClassificationsByValue()})
+	 * @return the scored paths or {@code null} iff the unit has to be (re-)computed
+	 */
+	synchronized List<ScoredPath> get(File explorationFile, String combination, String fingerprint, List<Map<String, Classification>> classificationPerLayer) {
+		Unit unit = this.units.getOrDefault(explorationFile.getName(), Map.of()).get(combination);
+		if (unit == null || !unit.fingerprint.equals(fingerprint) || unit.values == null) {
+			return null;
+		}
+		return unit.classifications.equals(ResultCache.hash(classificationPerLayer, unit.values)) ? unit.paths : null;
+	}
+
+	/**
+	 * Mark a unit as completed.
+	 *
+	 * @param explorationFile the exploration file
+	 * @param combination     the rating combination
+	 * @param fingerprint     the current fingerprint of the file
+	 * @param values          the sorted values of each layer scored by the paths
+	 * @param classifications the hash of the classifications of the values (see
+	 *                        {@link ResultCache#hash(List, List)})
+	 * @param paths           the scored paths of the unit
+	 * @throws IOException iff the progress file cannot be written
+	 */
+	synchronized void complete(File explorationFile, String combination, String fingerprint, List<List<String>> values, String classifications, List<ScoredPath> paths)
+			throws IOException {
+		Unit unit = new Unit(explorationFile.getName(), combination, fingerprint, values, classifications, paths);
+		this.units.computeIfAbsent(unit.file, f -> new LinkedHashMap<>()).put(combination, unit);
+		try (BufferedWriter writer = Files.newBufferedWriter(this.progressFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			writer.write(this.lineWriter.writeValueAsString(unit));
+			writer.newLine();
+		}
+	}
+
+	private static final class Unit {
+		private String file;
+		private String combination;
+		private String fingerprint;
+		private List<List<String>> values;
+		private String classifications;
+		private List<ScoredPath> paths;
+
+		private Unit() {
+			// NOP (for deserialization)
+		}
+
+		private Unit(String file, String combination, String fingerprint, List<List<String>> values, String classifications, List<ScoredPath> paths) {
+			this.file = file;
+			this.combination = combination;
+			this.fingerprint = fingerprint;
+			this.values = values;
+			this.classifications = classifications;
+			this.paths = paths;
+		}
+	}
+}
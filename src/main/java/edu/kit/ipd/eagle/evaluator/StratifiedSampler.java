@@ -0,0 +1,419 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.fuchss.tools.tuple.Tuple2;
+import org.fuchss.tools.tuple.Tuple3;
+
+import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Estimates the proportions of good and bad hypotheses per layer by a
+ * stratified sample instead of classifying all hypotheses of an
+ * {@link Evaluator}. The hypotheses that need classification are divided into
+ * strata by layer and confidence band. Each stratum is sampled (without
+ * replacement); afterwards further samples are drawn only for layers whose
+ * confidence intervals are wider than the requested margin (allocated to the
+ * strata with the highest estimated variance, see Neyman allocation).
+ * Besides good and bad hypotheses, the proportions of true positives, false
+ * positives and false negatives of the hypotheses scored by the complete
+ * exploration are estimated per stratum; precision, recall and F1 of a layer
+ * are derived from them (see {@link Estimate}).
+ */
+public final class StratifiedSampler {
+	private static final int GOOD = 0;
+	private static final int BAD = 1;
+	private static final int TP = 2;
+	private static final int FP = 3;
+	private static final int FN = 4;
+	private static final List<ToIntFunction<Stratum>> COUNTS = List.of(s -> s.good, s -> s.bad, s -> s.tp, s -> s.fp, s -> s.fn);
+
+	private final Evaluator evaluator;
+	private final double margin;
+	private final double confidence;
+	private final int batchSize;
+	private final int bands;
+	// The values scored by the complete exploration for each layer
+	private List<Set<String>> scored = List.of();
+
+	/**
+	 * Create a new sampler.
+	 *
+	 * @param evaluator  the evaluator
+	 * @param margin     the maximum half width of the confidence intervals (e.g.
+	 *                   0.05)
+	 * @param confidence the confidence level (e.g. 0.95)
+	 * @param batchSize  the amount of samples per stratum in the first round and
+	 *                   per layer in further rounds
+	 * @param bands      the number of confidence bands per layer
+	 */
+	public StratifiedSampler(Evaluator evaluator, double margin, double confidence, int batchSize, int bands) {
+		if (margin <= 0 || margin >= 1) {
+			throw new IllegalArgumentException("Margin has to be in (0,1): " + margin);
+		}
+		if (confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException("Confidence has to be in (0,1): " + confidence);
+		}
+		this.evaluator = evaluator;
+		this.margin = margin;
+		this.confidence = confidence;
+		this.batchSize = Math.max(1, batchSize);
+		this.bands = Math.max(1, bands);
+	}
+
+	/**
+	 * Draw samples until all estimates are precise enough (or all hypotheses
+	 * have been classified).
+	 *
+	 * @param classifier the classifier (e.g. the user) that will be asked for the
+	 *                   sampled hypotheses (see
+	 *                   {@link Evaluator#findNextHypothesis()})
+	 * @return the estimates per layer
+	 */
+	public List<Estimate> sample(Function<Tuple3<Integer, HypothesisDTO, String>, Classification> classifier) {
+		List<List<Stratum>> layers = this.createStrata();
+
+		for (var strata : layers) {
+			for (Stratum stratum : strata) {
+				this.draw(stratum, this.batchSize, classifier);
+			}
+		}
+
+		while (true) {
+			boolean drawn = false;
+			for (var strata : layers) {
+				if (strata.isEmpty() || this.estimate(strata).isPrecise(this.margin)) {
+					continue;
+				}
+				for (int i = 0; i < this.batchSize; i++) {
+					Stratum next = StratifiedSampler.selectNeyman(strata);
+					if (next == null) {
+						break;
+					}
+					this.draw(next, 1, classifier);
+					drawn = true;
+				}
+			}
+			if (!drawn) {
+				break;
+			}
+		}
+
+		List<Estimate> estimates = new ArrayList<>();
+		for (var strata : layers) {
+			if (!strata.isEmpty()) {
+				estimates.add(this.estimate(strata));
+			}
+		}
+		return estimates;
+	}
+
+	private List<List<Stratum>> createStrata() {
+		IExplorationResult exploration = this.evaluator.getExplorationResult();
+		if (exploration != null) {
+			this.scored = this.evaluator.getScoredHypotheses(PathView.of(exploration.getId(), exploration), false);
+		}
+
+		List<List<Stratum>> layers = new ArrayList<>();
+		// Resolves all hypotheses that can be classified automatically
+		for (var hypothesis : this.evaluator.findNextHypotheses(Integer.MAX_VALUE)) {
+			int layer = hypothesis.getFirst();
+			while (layers.size() <= layer) {
+				List<Stratum> strata = new ArrayList<>();
+				for (int band = 0; band < this.bands; band++) {
+					strata.add(new Stratum(layers.size()));
+				}
+				layers.add(strata);
+			}
+			layers.get(layer).get(this.getBand(hypothesis.getSecond().getConfidence())).items.add(hypothesis);
+		}
+
+		SplittableRandom random = new SplittableRandom(String.valueOf(this.evaluator.getId()).hashCode());
+		for (var strata : layers) {
+			strata.removeIf(s -> s.items.isEmpty());
+			for (Stratum stratum : strata) {
+				// Fisher-Yates: drawing the items in order is sampling without replacement
+				for (int i = stratum.items.size() - 1; i > 0; i--) {
+					int j = random.nextInt(i + 1);
+					stratum.items.set(i, stratum.items.set(j, stratum.items.get(i)));
+				}
+			}
+		}
+		return layers;
+	}
+
+	private int getBand(double confidence) {
+		if (Double.isNaN(confidence)) {
+			return 0;
+		}
+		return Math.max(0, Math.min(this.bands - 1, (int) (confidence * this.bands)));
+	}
+
+	private void draw(Stratum stratum, int count, Function<Tuple3<Integer, HypothesisDTO, String>, Classification> classifier) {
+		for (int i = 0; i < count && stratum.drawn < stratum.items.size(); i++) {
+			var hypothesis = stratum.items.get(stratum.drawn++);
+			int layer = hypothesis.getFirst();
+			// Classified in the meantime (e.g. resolved as similar hypothesis or by the
+			// classification database) .. the item is part of the sample, but the
+			// classifier is not asked again
+			Classification classification = this.evaluator.getEvaluationData().getClassification(layer, hypothesis.getSecond());
+			if (classification == null) {
+				classification = classifier.apply(hypothesis);
+				this.evaluator.setClassification(layer, hypothesis.getSecond(), classification);
+			}
+
+			boolean selected = layer < this.scored.size() && this.scored.get(layer).contains(hypothesis.getSecond().getValue());
+			Boolean good = Classification.isGood(classification);
+			if (good == Boolean.TRUE) {
+				stratum.good++;
+				if (selected) {
+					stratum.tp++;
+				} else {
+					stratum.fn++;
+				}
+			} else if (good == Boolean.FALSE) {
+				stratum.bad++;
+				if (selected) {
+					stratum.fp++;
+				}
+			}
+		}
+	}
+
+	private static Stratum selectNeyman(List<Stratum> strata) {
+		Stratum best = null;
+		double bestGain = -1;
+		for (Stratum stratum : strata) {
+			if (stratum.drawn == stratum.items.size()) {
+				continue;
+			}
+			// Neyman allocation: n_h ~ N_h * S_h; add to the stratum that is furthest behind
+			double variance = 0;
+			for (var count : COUNTS) {
+				variance = Math.max(variance, stratum.variance(count.applyAsInt(stratum)));
+			}
+			double deviation = Math.sqrt(variance);
+			double gain = stratum.items.size() * deviation / (stratum.drawn + 1);
+			if (gain > bestGain) {
+				best = stratum;
+				bestGain = gain;
+			}
+		}
+		return best;
+	}
+
+	private Estimate estimate(List<Stratum> strata) {
+		int population = 0;
+		int sampled = 0;
+		for (Stratum stratum : strata) {
+			population += stratum.items.size();
+			sampled += stratum.drawn;
+		}
+
+		double z = StratifiedSampler.quantile((1 + this.confidence) / 2);
+		double[] proportions = new double[COUNTS.size()];
+		ConfidenceInterval[] intervals = new ConfidenceInterval[COUNTS.size()];
+		for (int i = 0; i < COUNTS.size(); i++) {
+			var count = COUNTS.get(i);
+			double variance = 0;
+			for (Stratum stratum : strata) {
+				double weight = 1.0 * stratum.items.size() / population;
+				proportions[i] += weight * count.applyAsInt(stratum) / stratum.drawn;
+				// Finite population correction: fully classified strata do not contribute
+				double fpc = 1 - 1.0 * stratum.drawn / stratum.items.size();
+				variance += weight * weight * fpc * stratum.variance(count.applyAsInt(stratum));
+			}
+			intervals[i] = this.interval(proportions[i], z * Math.sqrt(variance));
+		}
+
+		int layer = strata.get(0).layer;
+		return new Estimate(layer, population, sampled, proportions, intervals);
+	}
+
+	private ConfidenceInterval interval(double estimate, double halfWidth) {
+		return new ConfidenceInterval(Math.max(0, estimate - halfWidth), Math.min(1, estimate + halfWidth), this.confidence);
+	}
+
+	/**
+	 * Approximate the quantile function of the standard normal distribution
+	 * (Abramowitz and Stegun 26.2.23, absolute error below 4.5e-4).
+	 *
+	 * @param p the probability (0.5 &lt;= p &lt; 1)
+	 * @return the quantile
+	 */
+	private static double quantile(double p) {
+		double t = Math.sqrt(-2 * Math.log(1 - p));
+		return t - (2.515517 + 0.802853 * t + 0.010328 * t * t) / (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+	}
+
+	private static final class Stratum {
+		private final int layer;
+		private final List<Tuple3<Integer, HypothesisDTO, String>> items = new ArrayList<>();
+		private int drawn;
+		private int good;
+		private int bad;
+		// Good / bad hypotheses that are (not) scored by the complete exploration
+		private int tp;
+		private int fp;
+		private int fn;
+
+		private Stratum(int layer) {
+			this.layer = layer;
+		}
+
+		private double variance(int hits) {
+			// Variance of the mean with an adjusted proportion (+1 / +2), so that
+			// strata without any (or only) hits are not considered as certain
+			double p = (hits + 1.0) / (this.drawn + 2.0);
+			return p * (1 - p) / (this.drawn + 2.0);
+		}
+	}
+
+	/**
+	 * Defines the estimated proportions of good and bad hypotheses of a layer.
+	 * Hypotheses classified as neither good nor bad (e.g.
+	 * {@link Classification#RATHER_CORRECT}) belong to none of both. The
+	 * proportions of true positives, false positives and false negatives refer to
+	 * the hypotheses scored by the complete exploration (as by {@link Statistics}),
+	 * restricted to the hypotheses that needed classification.
+	 */
+	public static final class Estimate {
+		/**
+		 * The layer.
+		 */
+		public final int layer;
+		/**
+		 * The amount of hypotheses that needed classification.
+		 */
+		public final int hypotheses;
+		/**
+		 * The amount of sampled (classified) hypotheses.
+		 */
+		public final int sampled;
+		/**
+		 * The estimated proportion of good hypotheses.
+		 */
+		public final double good;
+		/**
+		 * The confidence interval of {@link #good}.
+		 */
+		public final ConfidenceInterval goodInterval;
+		/**
+		 * The estimated proportion of bad hypotheses.
+		 */
+		public final double bad;
+		/**
+		 * The confidence interval of {@link #bad}.
+		 */
+		public final ConfidenceInterval badInterval;
+		/**
+		 * The estimated proportion of good hypotheses that are scored.
+		 */
+		public final double truePositives;
+		/**
+		 * The confidence interval of {@link #truePositives}.
+		 */
+		public final ConfidenceInterval truePositivesInterval;
+		/**
+		 * The estimated proportion of bad hypotheses that are scored.
+		 */
+		public final double falsePositives;
+		/**
+		 * The confidence interval of {@link #falsePositives}.
+		 */
+		public final ConfidenceInterval falsePositivesInterval;
+		/**
+		 * The estimated proportion of good hypotheses that are not scored.
+		 */
+		public final double falseNegatives;
+		/**
+		 * The confidence interval of {@link #falseNegatives}.
+		 */
+		public final ConfidenceInterval falseNegativesInterval;
+
+		private Estimate(int layer, int hypotheses, int sampled, double[] proportions, ConfidenceInterval[] intervals) {
+			this.layer = layer;
+			this.hypotheses = hypotheses;
+			this.sampled = sampled;
+			this.good = proportions[GOOD];
+			this.goodInterval = intervals[GOOD];
+			this.bad = proportions[BAD];
+			this.badInterval = intervals[BAD];
+			this.truePositives = proportions[TP];
+			this.truePositivesInterval = intervals[TP];
+			this.falsePositives = proportions[FP];
+			this.falsePositivesInterval = intervals[FP];
+			this.falseNegatives = proportions[FN];
+			this.falseNegativesInterval = intervals[FN];
+		}
+
+		/**
+		 * Estimate the precision of the scored hypotheses of the layer:
+		 * tp/(tp+fp). The interval combines the bounds of the intervals of the
+		 * proportions (conservative).
+		 *
+		 * @return the estimated precision and its interval
+		 */
+		public Tuple2<Double, ConfidenceInterval> getPrecision() {
+			return this.ratio(1, this.truePositives, this.truePositivesInterval, this.falsePositives, this.falsePositivesInterval);
+		}
+
+		/**
+		 * Estimate the recall of the scored hypotheses of the layer: tp/(tp+fn). The
+		 * interval combines the bounds of the intervals of the proportions
+		 * (conservative).
+		 *
+		 * @return the estimated recall and its interval
+		 */
+		public Tuple2<Double, ConfidenceInterval> getRecall() {
+			return this.ratio(1, this.truePositives, this.truePositivesInterval, this.falseNegatives, this.falseNegativesInterval);
+		}
+
+		/**
+		 * Estimate the F1 score of the scored hypotheses of the layer:
+		 * 2tp/(2tp+fp+fn). The interval combines the bounds of the intervals of the
+		 * proportions (conservative).
+		 *
+		 * @return the estimated F1 score and its interval
+		 */
+		public Tuple2<Double, ConfidenceInterval> getF1() {
+			double errors = this.falsePositives + this.falseNegatives;
+			// fp and fn are disjoint .. the bounds of their sum are the sums of the bounds
+			ConfidenceInterval errorsInterval = new ConfidenceInterval(this.falsePositivesInterval.lower + this.falseNegativesInterval.lower,
+					this.falsePositivesInterval.upper + this.falseNegativesInterval.upper, this.truePositivesInterval.level);
+			return this.ratio(2, this.truePositives, this.truePositivesInterval, errors, errorsInterval);
+		}
+
+		// (factor * x) / (factor * x + y) is increasing in x and decreasing in y
+		private Tuple2<Double, ConfidenceInterval> ratio(double factor, double x, ConfidenceInterval xInterval, double y, ConfidenceInterval yInterval) {
+			double lower = factor * xInterval.lower / (factor * xInterval.lower + yInterval.upper);
+			double upper = factor * xInterval.upper / (factor * xInterval.upper + yInterval.lower);
+			return Tuple2.of(factor * x / (factor * x + y), new ConfidenceInterval(lower, upper, xInterval.level));
+		}
+
+		private boolean isPrecise(double margin) {
+			for (ConfidenceInterval interval : List.of(this.goodInterval, this.badInterval, this.truePositivesInterval, this.falsePositivesInterval, this.falseNegativesInterval)) {
+				if ((interval.upper - interval.lower) / 2 > margin) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			var precision = this.getPrecision();
+			var recall = this.getRecall();
+			var f1 = this.getF1();
+			return String.format("Layer %d: %d/%d sampled, good: %.2f%% %s, bad: %.2f%% %s, precision: %.2f%% %s, recall: %.2f%% %s, F1: %.2f%% %s", this.layer, this.sampled,
+					this.hypotheses, this.good * 100, this.goodInterval, this.bad * 100, this.badInterval, precision.getFirst() * 100, precision.getSecond(), recall.getFirst() * 100,
+					recall.getSecond(), f1.getFirst() * 100, f1.getSecond());
+		}
+	}
+}
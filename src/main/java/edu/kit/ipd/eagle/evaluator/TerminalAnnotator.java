@@ -0,0 +1,246 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.fuchss.tools.tuple.Tuple2;
+import org.fuchss.tools.tuple.Tuple3;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * A terminal user interface for the classification of hypotheses that reads
+ * single keystrokes (the terminal will be switched to non-canonical mode via
+ * {@code stty}). Besides the current hypothesis the next hypotheses will be
+ * shown (grouped by layer). Decisions can be undone and are saved
+ * asynchronously.
+ */
+public final class TerminalAnnotator implements AutoCloseable {
+	private static final String CLEAR = "\033[H\033[2J";
+	private static final int BACKSPACE = 8;
+	private static final int DELETE = 127;
+
+	private final int lookahead;
+	private final InputStream in;
+	private final PrintStream out;
+	private final String previousMode;
+	private final Thread restoreHook;
+	private final ExecutorService saver;
+	private final AtomicBoolean savePending = new AtomicBoolean();
+
+	private TerminalAnnotator(int lookahead, String previousMode) {
+		this.lookahead = lookahead;
+		this.in = System.in;
+		this.out = System.out;
+		this.previousMode = previousMode;
+		this.restoreHook = new Thread(this::restoreTerminal);
+		Runtime.getRuntime().addShutdownHook(this.restoreHook);
+		this.saver = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Evaluation Saver");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Switch the terminal to non-canonical mode and create a new annotator.
+	 *
+	 * @param lookahead the amount of upcoming hypotheses that shall be shown
+	 * @return the annotator
+	 * @throws IOException iff the terminal mode cannot be changed (e.g. no
+	 *                     terminal or no {@code stty})
+	 */
+	public static TerminalAnnotator open(int lookahead) throws IOException {
+		String previousMode = TerminalAnnotator.stty("-g").trim();
+		TerminalAnnotator.stty("-icanon -echo min 1");
+		return new TerminalAnnotator(lookahead, previousMode);
+	}
+
+	private static String stty(String arguments) throws IOException {
+		Process process = new ProcessBuilder("sh", "-c", "stty " + arguments + " < /dev/tty").redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		try {
+			String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+			if (process.waitFor() != 0) {
+				throw new IOException("stty " + arguments + " failed");
+			}
+			return output;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Classify all pending hypotheses of an evaluator. Keys: {@code 1}/{@code c}
+	 * (correct), {@code 2} (rather correct), {@code 3} (rather wrong),
+	 * {@code 4}/{@code w} (wrong), {@code u}/Backspace (undo) and {@code q} (skip
+	 * the remaining hypotheses).
+	 *
+	 * @param evaluator the evaluator
+	 * @throws IOException iff the terminal cannot be read
+	 */
+	public void annotate(Evaluator evaluator) throws IOException {
+		try {
+			this.classify(evaluator);
+		} finally {
+			this.awaitSave();
+		}
+	}
+
+	private void classify(Evaluator evaluator) throws IOException {
+		Deque<Tuple3<Integer, HypothesisDTO, String>> upcoming = new ArrayDeque<>();
+		Deque<Tuple2<Tuple3<Integer, HypothesisDTO, String>, Classification>> history = new ArrayDeque<>();
+
+		while (true) {
+			if (upcoming.size() <= this.lookahead) {
+				synchronized (evaluator) {
+					upcoming.addAll(evaluator.findNextHypotheses(this.lookahead + 1 - upcoming.size()));
+				}
+			}
+			if (upcoming.isEmpty()) {
+				return;
+			}
+			this.render(evaluator, upcoming, history);
+
+			int key = this.in.read();
+			if (key == -1 || key == 'q') {
+				return;
+			}
+
+			if (key == 'u' || key == BACKSPACE || key == DELETE) {
+				if (!history.isEmpty()) {
+					var last = history.pop();
+					synchronized (evaluator) {
+						evaluator.removeClassification(last.getFirst().getFirst(), last.getFirst().getSecond());
+					}
+					upcoming.addFirst(last.getFirst());
+					this.save(evaluator);
+				}
+				continue;
+			}
+
+			Classification classification = TerminalAnnotator.getClassification(key);
+			if (classification == null) {
+				continue;
+			}
+			var next = upcoming.poll();
+			synchronized (evaluator) {
+				evaluator.setClassification(next.getFirst(), next.getSecond(), classification);
+			}
+			history.push(Tuple2.of(next, classification));
+			this.save(evaluator);
+		}
+	}
+
+	private static Classification getClassification(int key) {
+		switch (key) {
+		case '1':
+		case 'c':
+			return Classification.CORRECT;
+		case '2':
+			return Classification.RATHER_CORRECT;
+		case '3':
+			return Classification.RATHER_WRONG;
+		case '4':
+		case 'w':
+			return Classification.WRONG;
+		default:
+			return null;
+		}
+	}
+
+	private void render(Evaluator evaluator, Deque<Tuple3<Integer, HypothesisDTO, String>> upcoming, Deque<Tuple2<Tuple3<Integer, HypothesisDTO, String>, Classification>> history) {
+		StringBuilder screen = new StringBuilder(CLEAR);
+		screen.append("ExplorationId/Sentence: \"").append(evaluator.getId()).append("\"\n\n");
+
+		var current = upcoming.peek();
+		screen.append(">> ").append(TerminalAnnotator.format(current)).append("\n\n");
+
+		Integer layer = null;
+		int shown = 0;
+		for (var next : upcoming) {
+			if (next == current) {
+				continue;
+			}
+			if (shown++ == this.lookahead) {
+				break;
+			}
+			if (!next.getFirst().equals(layer)) {
+				layer = next.getFirst();
+				screen.append("   Layer ").append(layer).append(":\n");
+			}
+			screen.append("      ").append(TerminalAnnotator.format(next)).append("\n");
+		}
+
+		screen.append("\n[1/c] CORRECT  [2] RATHER_CORRECT  [3] RATHER_WRONG  [4/w] WRONG  [u] undo  [q] skip rest\n");
+		if (!history.isEmpty()) {
+			var last = history.peek();
+			screen.append("Last: ").append(TerminalAnnotator.format(last.getFirst())).append(" -> ").append(last.getSecond()).append("\n");
+		}
+		this.out.print(screen);
+		this.out.flush();
+	}
+
+	private static String format(Tuple3<Integer, HypothesisDTO, String> hypothesis) {
+		String value = hypothesis.getSecond().getValue();
+		return "Layer: " + hypothesis.getFirst() + (hypothesis.getThird() == null ? "" : ", Word: \"" + hypothesis.getThird() + "\"") + ", Hypothesis: " + value;
+	}
+
+	private void save(Evaluator evaluator) {
+		// Coalesce saves: at most one pending save task
+		if (!this.savePending.compareAndSet(false, true)) {
+			return;
+		}
+		this.saver.execute(() -> {
+			this.savePending.set(false);
+			synchronized (evaluator) {
+				try {
+					evaluator.save();
+				} catch (IOException e) {
+					System.err.println("Error while saving file ..");
+				}
+			}
+		});
+	}
+
+	private void awaitSave() {
+		// Wait for pending saves (the caller may save the evaluator afterwards)
+		try {
+			this.saver.submit(() -> {
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			System.err.println("Error while saving file ..");
+		}
+	}
+
+	private void restoreTerminal() {
+		try {
+			TerminalAnnotator.stty(this.previousMode);
+		} catch (IOException e) {
+			System.err.println("Cannot restore terminal: " + e);
+		}
+	}
+
+	@Override
+	public void close() {
+		this.saver.shutdown();
+		try {
+			this.saver.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.restoreTerminal();
+		Runtime.getRuntime().removeShutdownHook(this.restoreHook);
+	}
+}
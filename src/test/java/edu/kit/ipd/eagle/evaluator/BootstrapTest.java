@@ -0,0 +1,135 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Bootstrap}.
+ */
+class BootstrapTest {
+	private static final int SAMPLES = 1000;
+	private static final double CONFIDENCE = 0.95;
+	private static final long SEED = 42;
+
+	@Test
+	void sameSeedSameIntervals() {
+		Score first = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(30, 10, 20));
+		Score second = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(30, 10, 20));
+		BootstrapTest.assertInterval(first.precisionInterval, second.precisionInterval);
+		BootstrapTest.assertInterval(first.recallInterval, second.recallInterval);
+		BootstrapTest.assertInterval(first.f1Interval, second.f1Interval);
+	}
+
+	@Test
+	void intervalsAreRememberedByCounts() {
+		Bootstrap bootstrap = new Bootstrap(SAMPLES, CONFIDENCE, SEED);
+		Score first = bootstrap.apply(new Score(30, 10, 20));
+		Score second = bootstrap.apply(new Score(30, 10, 20));
+		assertSame(first.precisionInterval, second.precisionInterval);
+		assertSame(first.f1Interval, second.f1Interval);
+	}
+
+	@Test
+	void perfectScoreHasNoUncertainty() {
+		Score score = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(20, 0, 0));
+		BootstrapTest.assertInterval(new ConfidenceInterval(1, 1, CONFIDENCE), score.precisionInterval);
+		BootstrapTest.assertInterval(new ConfidenceInterval(1, 1, CONFIDENCE), score.recallInterval);
+		BootstrapTest.assertInterval(new ConfidenceInterval(1, 1, CONFIDENCE), score.f1Interval);
+	}
+
+	@Test
+	void undefinedSamplesAreDropped() {
+		// No true positive in about 35% of the samples (0.9^10): precision is undefined
+		// for them and 1 for all others
+		Score score = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(1, 0, 9));
+		BootstrapTest.assertInterval(new ConfidenceInterval(1, 1, CONFIDENCE), score.precisionInterval);
+		assertEquals(0, score.recallInterval.lower);
+
+		// No sample has a defined precision
+		Score nothing = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(0, 0, 5));
+		assertTrue(Double.isNaN(nothing.precisionInterval.lower));
+		assertTrue(Double.isNaN(nothing.precisionInterval.upper));
+		BootstrapTest.assertInterval(new ConfidenceInterval(0, 0, CONFIDENCE), nothing.recallInterval);
+	}
+
+	@Test
+	void emptyScoreHasNoIntervals() {
+		Score score = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(0, 0, 0));
+		assertNull(score.precisionInterval);
+	}
+
+	@Test
+	void intervalMatchesNormalApproximation() {
+		// Precision 0.5 of 1000 items: standard error sqrt(0.25 / 1000) ~ 0.0158
+		Score score = new Bootstrap(SAMPLES, CONFIDENCE, SEED).apply(new Score(500, 500, 0));
+		assertEquals(0.5 - 1.96 * 0.0158, score.precisionInterval.lower, 0.01);
+		assertEquals(0.5 + 1.96 * 0.0158, score.precisionInterval.upper, 0.01);
+	}
+
+	@Test
+	void intervalsCoverTheTruePrecision() {
+		// Classified items with true probabilities (tp: 0.5, fp: 0.2, fn: 0.3)
+		SplittableRandom random = new SplittableRandom(SEED);
+		Bootstrap bootstrap = new Bootstrap(SAMPLES, CONFIDENCE, SEED);
+		int experiments = 200;
+		int covered = 0;
+		for (int i = 0; i < experiments; i++) {
+			int tp = 0;
+			int fp = 0;
+			int fn = 0;
+			for (int item = 0; item < 200; item++) {
+				double u = random.nextDouble();
+				if (u < 0.5) {
+					tp++;
+				} else if (u < 0.7) {
+					fp++;
+				} else {
+					fn++;
+				}
+			}
+			ConfidenceInterval interval = bootstrap.apply(new Score(tp, fp, fn)).precisionInterval;
+			if (interval.lower <= 0.5 / 0.7 && 0.5 / 0.7 <= interval.upper) {
+				covered++;
+			}
+		}
+		double coverage = 1.0 * covered / experiments;
+		assertTrue(coverage >= 0.88 && coverage <= 0.99, "Coverage: " + coverage);
+	}
+
+	@Test
+	void binomialMoments() {
+		// Inversion (small mean), rejection and the symmetric case
+		int[] trials = { 20, 5000, 5000 };
+		double[] probabilities = { 0.1, 0.3, 0.8 };
+		for (int t = 0; t < trials.length; t++) {
+			SplittableRandom random = new SplittableRandom(SEED);
+			int n = trials[t];
+			double p = probabilities[t];
+			int draws = 100000;
+			double sum = 0;
+			double squares = 0;
+			for (int i = 0; i < draws; i++) {
+				int k = Bootstrap.binomial(random, n, p);
+				assertTrue(k >= 0 && k <= n);
+				sum += k;
+				squares += (double) k * k;
+			}
+			double mean = sum / draws;
+			double variance = squares / draws - mean * mean;
+			assertEquals(n * p, mean, 0.01 * n * p);
+			assertEquals(n * p * (1 - p), variance, 0.05 * n * p * (1 - p));
+		}
+	}
+
+	private static void assertInterval(ConfidenceInterval expected, ConfidenceInterval actual) {
+		assertEquals(expected.lower, actual.lower);
+		assertEquals(expected.upper, actual.upper);
+		assertEquals(expected.level, actual.level);
+	}
+}
@@ -0,0 +1,97 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_WRONG;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSet;
+import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for {@link DeltaEvaluator}. Both explorations consist of two layers
+ * (one hypotheses set each).
+ */
+class DeltaEvaluatorTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void knownClassificationsAreCarriedOver() throws IOException {
+		Evaluator previous = Evaluator.of(DeltaEvaluatorTest.exploration(List.of("a", "b", "c"), List.of("x")), this.directory.resolve("old.eval.json").toFile());
+		previous.setClassification(0, DeltaEvaluatorTest.hypothesis("a"), CORRECT);
+		previous.setClassification(0, DeltaEvaluatorTest.hypothesis("b"), WRONG);
+		previous.setClassification(0, DeltaEvaluatorTest.hypothesis("c"), CORRECT);
+		previous.setClassification(1, DeltaEvaluatorTest.hypothesis("x"), CORRECT);
+
+		// The new evaluation already contains a classification of b
+		File newEvalFile = this.directory.resolve("new.eval.json").toFile();
+		EvaluationData existing = new EvaluationData(2);
+		existing.addClassifications(0, RATHER_WRONG, List.of(DeltaEvaluatorTest.hypothesis("b")));
+		JsonFiles.write(newEvalFile, existing);
+		Evaluator evaluator = Evaluator.of(DeltaEvaluatorTest.exploration(List.of("a", "b", "d"), List.of("a")), newEvalFile);
+
+		DeltaEvaluator.prepare(previous, evaluator);
+
+		EvaluationData data = evaluator.getEvaluationData();
+		assertEquals(CORRECT, data.getClassification(0, DeltaEvaluatorTest.hypothesis("a")));
+		assertEquals(RATHER_WRONG, data.getClassification(0, DeltaEvaluatorTest.hypothesis("b")));
+		// c does not exist anymore, a is unknown in the second layer
+		assertNull(data.getClassification(0, DeltaEvaluatorTest.hypothesis("c")));
+		assertNull(data.getClassification(1, DeltaEvaluatorTest.hypothesis("a")));
+
+		Set<String> remaining = new HashSet<>();
+		for (var next : evaluator.findNextHypotheses(Integer.MAX_VALUE)) {
+			remaining.add(next.getFirst() + ":" + next.getSecond().getValue());
+		}
+		assertEquals(Set.of("0:d", "1:a"), remaining);
+	}
+
+	@Test
+	void onlyChangedPathsAreReported() throws IOException {
+		List<ScoredPath> before = List.of(DeltaEvaluatorTest.path("A", 0, 1, 1, 2), DeltaEvaluatorTest.path("A", 1, 1, 0, 2), DeltaEvaluatorTest.path("B", 0, 2, 0, 2));
+		// A-0: unchanged, A-1: one more bad hypothesis, B-0: removed, C-0: new
+		List<ScoredPath> after = List.of(DeltaEvaluatorTest.path("A", 0, 1, 1, 2), DeltaEvaluatorTest.path("A", 1, 1, 1, 2), DeltaEvaluatorTest.path("C", 0, 2, 0, 2));
+
+		File csv = this.directory.resolve("delta.csv").toFile();
+		assertEquals(3, DeltaEvaluator.reportChanges(before, after, csv));
+
+		List<String> lines = Files.readAllLines(csv.toPath());
+		assertEquals(4, lines.size());
+		assertEquals("A;1;1;0;1;0.6667;1;1;1;0.5000;", lines.get(1));
+		assertEquals("B;0;2;0;0;1.0000;;;;;", lines.get(2));
+		assertEquals("C;0;;;;;2;0;0;1.0000;", lines.get(3));
+	}
+
+	private static IExplorationResult exploration(List<String> first, List<String> second) {
+		var child = TestData.entry(List.of(DeltaEvaluatorTest.set(second)), List.of(), List.of());
+		return TestData.exploration("sentence", TestData.entry(List.of(DeltaEvaluatorTest.set(first)), List.of(), List.of(child)));
+	}
+
+	private static IHypothesesSet set(List<String> values) {
+		return TestData.set(values.stream().map(v -> TestData.hypothesis(v, 0.5)).toArray(HypothesisDTO[]::new));
+	}
+
+	private static HypothesisDTO hypothesis(String value) {
+		// Classified hypotheses are stored without confidence
+		return TestData.hypothesis(value, Double.NaN);
+	}
+
+	private static ScoredPath path(String combination, int rank, int hits, int bad, int possibleHits) {
+		PathView view = PathView.of("path.json", "sentence", combination, rank, TestData.path());
+		return new ScoredPath(view, new ScoreMatrix(new int[] { hits }, new int[] { bad }, new int[] { possibleHits }));
+	}
+}
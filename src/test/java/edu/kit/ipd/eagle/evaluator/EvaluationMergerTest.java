@@ -0,0 +1,173 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_WRONG;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for the majority vote and the agreement of {@link EvaluationMerger}.
+ */
+class EvaluationMergerTest {
+	private static final double DELTA = 1E-9;
+
+	// 3 annotators, 5 hypotheses (the last one has only one rating)
+	private static final Classification[][] RATINGS = { //
+			{ CORRECT, CORRECT, CORRECT }, //
+			{ CORRECT, CORRECT, WRONG }, //
+			{ WRONG, WRONG, WRONG }, //
+			{ CORRECT, WRONG, WRONG }, //
+			{ CORRECT, null, null } //
+	};
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void mergeFiles() throws IOException {
+		// Each annotator classifies the hypotheses (values h0 .. h4) of RATINGS in
+		// layer 1 (layer 0 remains empty)
+		List<File> evalFiles = new ArrayList<>();
+		for (int a = 0; a < RATINGS[0].length; a++) {
+			EvaluationData data = new EvaluationData(2);
+			for (int h = 0; h < RATINGS.length; h++) {
+				if (RATINGS[h][a] != null) {
+					// Stored without confidence (as by Evaluator#setClassification)
+					data.addClassifications(1, RATINGS[h][a], List.of(TestData.hypothesis("h" + h, Double.NaN)));
+				}
+			}
+			File evalFile = this.directory.resolve("a" + a + ".eval.json").toFile();
+			JsonFiles.write(evalFile, data);
+			evalFiles.add(evalFile);
+		}
+
+		File output = this.directory.resolve("merged.eval.json").toFile();
+		new EvaluationMerger(evalFiles, 2).merge(output);
+
+		EvaluationData merged = JsonFiles.read(output, EvaluationData.class);
+		assertEquals(2, merged.getNumberOfLayers());
+		Classification[] expected = { CORRECT, CORRECT, WRONG, WRONG, CORRECT };
+		for (int h = 0; h < expected.length; h++) {
+			HypothesisDTO hypothesis = TestData.hypothesis("h" + h, 0.5);
+			assertEquals(expected[h], merged.getClassification(1, hypothesis));
+			assertNull(merged.getClassification(0, hypothesis));
+		}
+
+		// h1 and h3
+		List<String> conflicts = Files.readAllLines(Path.of(output.getAbsolutePath() + ".conflicts.csv"));
+		assertEquals(3, conflicts.size());
+		List<String> agreement = Files.readAllLines(Path.of(output.getAbsolutePath() + ".agreement.csv"));
+		assertEquals("1;5;4;2;0.3333;", agreement.get(2));
+	}
+
+	@Test
+	void majorityWins() {
+		assertEquals(CORRECT, this.vote(CORRECT, CORRECT, WRONG));
+		assertEquals(WRONG, this.vote(null, WRONG, null));
+		assertNull(this.vote(null, null, null));
+	}
+
+	@Test
+	void tiesAreResolvedByTheMean() {
+		// Mean 1/3 .. RATHER_CORRECT is closest
+		assertEquals(RATHER_CORRECT, this.vote(CORRECT, RATHER_CORRECT, WRONG));
+		// Mean 0.8 .. RATHER_CORRECT (0.2) is closer than CORRECT (1.2)
+		assertEquals(RATHER_CORRECT, this.vote(CORRECT, CORRECT, RATHER_CORRECT, RATHER_CORRECT, WRONG));
+	}
+
+	@Test
+	void tiesWithoutClosestClassificationRemainUndecided() {
+		assertNull(this.vote(CORRECT, WRONG));
+		assertNull(this.vote(RATHER_CORRECT, RATHER_WRONG));
+		assertNull(this.vote(CORRECT, RATHER_CORRECT));
+	}
+
+	@Test
+	void conflicts() {
+		assertFalse(this.item(CORRECT, null, CORRECT).isConflict());
+		assertTrue(this.item(CORRECT, null, RATHER_CORRECT).isConflict());
+		assertFalse(this.item(null, null).isConflict());
+	}
+
+	@Test
+	void fleissKappa() {
+		// P = (1 + 1/3 + 1 + 1/3) / 4 = 2/3, Pe = 0.5^2 + 0.5^2 = 0.5
+		// kappa = (2/3 - 0.5) / (1 - 0.5) = 1/3
+		assertEquals(1.0 / 3, this.agreement(RATINGS).fleissKappa(), DELTA);
+	}
+
+	@Test
+	void cohenKappa() {
+		EvaluationMerger.Agreement agreement = this.agreement(RATINGS);
+		// Po = 3/4, Pe = 3/4 * 2/4 + 1/4 * 2/4 = 1/2
+		assertEquals(0.5, agreement.cohenKappa(0, 1), DELTA);
+		// Po = 2/4, Pe = 3/4 * 1/4 + 1/4 * 3/4 = 3/8
+		assertEquals(0.2, agreement.cohenKappa(0, 2), DELTA);
+		// Po = 3/4, Pe = 2/4 * 1/4 + 2/4 * 3/4 = 1/2
+		assertEquals(0.5, agreement.cohenKappa(1, 2), DELTA);
+	}
+
+	@Test
+	void mergedAgreementEqualsAgreementOfAllHypotheses() {
+		EvaluationMerger.Agreement merged = this.agreement(RATINGS[0], RATINGS[1]);
+		merged.add(this.agreement(RATINGS[2], RATINGS[3], RATINGS[4]));
+
+		EvaluationMerger.Agreement all = this.agreement(RATINGS);
+		assertEquals(all.fleissKappa(), merged.fleissKappa(), DELTA);
+		assertEquals(all.cohenKappa(0, 2), merged.cohenKappa(0, 2), DELTA);
+	}
+
+	@Test
+	void kappaIsUndefinedWithoutCommonRatings() {
+		EvaluationMerger.Agreement agreement = this.agreement(new Classification[] { CORRECT, null }, new Classification[] { null, WRONG });
+		assertTrue(Double.isNaN(agreement.fleissKappa()));
+		assertTrue(Double.isNaN(agreement.cohenKappa(0, 1)));
+		assertTrue(Double.isNaN(new EvaluationMerger.Agreement(2).fleissKappa()));
+	}
+
+	@Test
+	void perfectAgreement() {
+		// Pe = 1 .. all ratings in one classification
+		EvaluationMerger.Agreement same = this.agreement(new Classification[] { CORRECT, CORRECT }, new Classification[] { CORRECT, CORRECT });
+		assertEquals(1, same.fleissKappa(), DELTA);
+		assertEquals(1, same.cohenKappa(0, 1), DELTA);
+
+		EvaluationMerger.Agreement different = this.agreement(new Classification[] { CORRECT, CORRECT }, new Classification[] { WRONG, WRONG });
+		assertEquals(1, different.fleissKappa(), DELTA);
+		assertEquals(1, different.cohenKappa(0, 1), DELTA);
+	}
+
+	private Classification vote(Classification... classifications) {
+		return this.item(classifications).vote();
+	}
+
+	private EvaluationMerger.Item item(Classification... classifications) {
+		EvaluationMerger.Item item = new EvaluationMerger.Item(classifications.length);
+		System.arraycopy(classifications, 0, item.classifications, 0, classifications.length);
+		return item;
+	}
+
+	private EvaluationMerger.Agreement agreement(Classification[]... ratings) {
+		EvaluationMerger.Agreement agreement = new EvaluationMerger.Agreement(ratings[0].length);
+		for (Classification[] rating : ratings) {
+			agreement.add(rating);
+		}
+		return agreement;
+	}
+}
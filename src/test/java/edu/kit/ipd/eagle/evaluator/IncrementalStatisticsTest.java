@@ -0,0 +1,115 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_WRONG;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+import edu.kit.ipd.eagle.port.xplore.layer.ILayerEntry;
+
+/**
+ * Tests for {@link IncrementalStatistics}. After every change of a
+ * classification, the incremental scores have to match the scores of a full
+ * scoring (as done by {@link Statistics}).
+ */
+class IncrementalStatisticsTest {
+	private static final HypothesisDTO A = TestData.hypothesis("a", 0.5);
+	private static final HypothesisDTO B = TestData.hypothesis("b", 0.5);
+	private static final HypothesisDTO C = TestData.hypothesis("c", 0.5);
+	private static final HypothesisDTO X = TestData.hypothesis("x", 0.5);
+	private static final HypothesisDTO Y = TestData.hypothesis("y", 0.5);
+	private static final HypothesisDTO Z = TestData.hypothesis("z", 0.5);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void scoresMatchFullScoring() throws IOException {
+		Evaluator evaluator = this.createEvaluator();
+		List<PathView> views = List.of( //
+				IncrementalStatisticsTest.view(1, List.of(A, B), X), //
+				IncrementalStatisticsTest.view(2, List.of(A), Y), //
+				IncrementalStatisticsTest.view(3, List.of(B, C), X), //
+				IncrementalStatisticsTest.view(4, List.of(C), Z), //
+				IncrementalStatisticsTest.view(5, List.of(A), X));
+		IncrementalStatistics statistics = new IncrementalStatistics(evaluator, views);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+
+		evaluator.setClassification(0, A, CORRECT);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.setClassification(1, X, CORRECT);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.setClassification(0, B, WRONG);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.setClassification(1, Y, RATHER_WRONG);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.removeClassification(0, B);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.setClassification(0, C, RATHER_CORRECT);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.setClassification(0, A, WRONG);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.removeClassification(1, X);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.setClassification(1, Z, CORRECT);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+		evaluator.removeClassification(0, A);
+		IncrementalStatisticsTest.assertScores(evaluator, views, statistics);
+	}
+
+	@Test
+	void noBestWithoutPaths() throws IOException {
+		IncrementalStatistics statistics = new IncrementalStatistics(this.createEvaluator(), List.of());
+		assertNull(statistics.getBest());
+	}
+
+	private Evaluator createEvaluator() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		JsonFiles.write(evalFile, new EvaluationData(2));
+		return new Evaluator(null, evalFile);
+	}
+
+	private static PathView view(int i, List<HypothesisDTO> selected, HypothesisDTO leaf) {
+		ILayerEntry first = TestData.entry(List.of(), List.of(), List.of());
+		ILayerEntry second = TestData.entry(List.of(TestData.set(leaf)), selected, List.of());
+		return PathView.of("path-" + i + ".json", "id", "A", i, TestData.path(first, second));
+	}
+
+	private static void assertScores(Evaluator evaluator, List<PathView> views, IncrementalStatistics statistics) {
+		int[] possibleHits = IntStream.range(0, evaluator.findNumOfLayers()).map(evaluator::getGoodHypothesesCount).toArray();
+		List<ScoredPath> expected = new ArrayList<>();
+		for (PathView view : views) {
+			expected.add(new ScoredPath(view, evaluator.score(view, false, possibleHits)));
+		}
+		expected = Statistics.sortByScore(expected);
+
+		List<ScoredPath> actual = statistics.getScores();
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			ScoredPath path = expected.get(i);
+			assertEquals(path.getName(), actual.get(i).getName());
+			List<Score> expectedScores = path.toScores(null);
+			List<Score> actualScores = actual.get(i).toScores(null);
+			assertEquals(expectedScores.size(), actualScores.size(), path.getName());
+			for (int layer = 0; layer < expectedScores.size(); layer++) {
+				assertEquals(expectedScores.get(layer).tp, actualScores.get(layer).tp, path.getName());
+				assertEquals(expectedScores.get(layer).fp, actualScores.get(layer).fp, path.getName());
+				assertEquals(expectedScores.get(layer).fn, actualScores.get(layer).fn, path.getName());
+			}
+		}
+		assertEquals(expected.get(0).getName(), statistics.getBest().getName());
+	}
+}
@@ -0,0 +1,87 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for {@link JsonFiles}. Compressed and uncompressed files have to be
+ * handled alike.
+ */
+class JsonFilesTest {
+	private static final HypothesisDTO A = TestData.hypothesis("a", Double.NaN);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void compressedFilesAreReadAsWritten() throws IOException {
+		EvaluationData data = new EvaluationData(1);
+		data.addClassifications(0, CORRECT, List.of(A));
+
+		File plain = this.file("test.eval.json");
+		File compressed = this.file("test.eval.json.gz");
+		JsonFiles.write(plain, data);
+		JsonFiles.write(compressed, data);
+
+		// gzip magic number
+		byte[] content = Files.readAllBytes(compressed.toPath());
+		assertEquals(0x1f, content[0] & 0xff);
+		assertEquals(0x8b, content[1] & 0xff);
+		assertEquals(CORRECT, JsonFiles.read(plain, EvaluationData.class).getClassification(0, A));
+		assertEquals(CORRECT, JsonFiles.read(compressed, EvaluationData.class).getClassification(0, A));
+	}
+
+	@Test
+	void explorationsAreLoadedFromBothVariants() throws IOException {
+		File plain = this.createExploration("exploration.json");
+		File compressed = this.createExploration("exploration.json.gz");
+		assertFalse(JsonFiles.isCompressed(plain));
+		assertTrue(JsonFiles.isCompressed(compressed));
+
+		assertNotNull(JsonFiles.loadExploration(plain));
+		assertNotNull(JsonFiles.loadExploration(compressed));
+	}
+
+	@Test
+	void uncompressedFilesArePreferred() throws IOException {
+		File plain = this.file("test.eval.json");
+		File compressed = this.file("test.eval.json.gz");
+		assertEquals(plain, JsonFiles.resolve(plain));
+
+		JsonFiles.write(compressed, new EvaluationData(1));
+		assertEquals(compressed, JsonFiles.resolve(plain));
+		assertEquals("test.eval.json", JsonFiles.getName(compressed));
+		assertTrue(JsonFiles.isJson(compressed));
+
+		JsonFiles.write(plain, new EvaluationData(1));
+		assertEquals(plain, JsonFiles.resolve(plain));
+	}
+
+	private File file(String name) {
+		return this.directory.resolve(name).toFile();
+	}
+
+	private File createExploration(String name) throws IOException {
+		File file = this.file(name);
+		try (OutputStream out = JsonFiles.create(file)) {
+			out.write("{}".getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+}
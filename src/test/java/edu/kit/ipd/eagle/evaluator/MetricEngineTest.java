@@ -0,0 +1,109 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_WRONG;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for {@link MetricEngine}. The expected values are calculated by hand
+ * (gains: correct 1, rather correct 0.75, rather wrong 0.25, wrong 0; k = 3).
+ */
+class MetricEngineTest {
+	private static final double DELTA = 1E-9;
+
+	private static final HypothesisDTO A = TestData.hypothesis("a", 0.9);
+	private static final HypothesisDTO B = TestData.hypothesis("b", 0.8);
+	private static final HypothesisDTO C = TestData.hypothesis("c", 0.7);
+	private static final HypothesisDTO D = TestData.hypothesis("d", 0.6);
+	private static final HypothesisDTO E = TestData.hypothesis("e", 0.5);
+	// Not classified .. not ranked
+	private static final HypothesisDTO X = TestData.hypothesis("x", 0.4);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void metricsOfOneLayer() throws IOException {
+		MetricEngine engine = new MetricEngine(this.createEvaluator());
+		// Rankings: [C, W, RC], [RC, RW] and [W]; the first hypothesis of each set is
+		// scored: a (C), c (RC) and b (W)
+		var path = TestData.path(TestData.entry(List.of(TestData.set(A, B, C, X), TestData.set(C, D), TestData.set(B)), List.of(), List.of()));
+		List<Metrics> metrics = engine.calculate(PathView.of("path.json", "id", "A", 0, path), false);
+		assertEquals(2, metrics.size());
+
+		for (Metrics m : metrics) {
+			// tp: a, fp: b, fn: e (rather correct/wrong are neither good nor bad)
+			assertEquals(1, m.score.tp);
+			assertEquals(1, m.score.fp);
+			assertEquals(1, m.score.fn);
+
+			// Gain of the scored hypotheses: 1 + 0.75 + 0, of all: 1 + 0 + 0.75 + 0.25 + 1
+			assertEquals(1.75 / 3, m.weightedPrecision, DELTA);
+			assertEquals(1.75 / 3, m.weightedRecall, DELTA);
+
+			// P@3: 1/3, 0/3 and 0/3 (the short ranking is divided by k as well)
+			assertEquals((1.0 / 3) / 3, m.precisionAtK, DELTA);
+			// First good hypothesis: rank 1, none and none
+			assertEquals(1.0 / 3, m.mrr, DELTA);
+
+			double log3 = Math.log(3) / Math.log(2);
+			double dcg = 1 + (Math.pow(2, 0.75) - 1) / 2;
+			double idcg = 1 + (Math.pow(2, 0.75) - 1) / log3;
+			// The second ranking is ideal, the third one has no gain
+			assertEquals((dcg / idcg + 1 + 0) / 3, m.ndcg, DELTA);
+		}
+	}
+
+	@Test
+	void layersWithoutRankingsAreUndefined() throws IOException {
+		MetricEngine engine = new MetricEngine(this.createEvaluator());
+		// Layer 0 contains no hypotheses sets, only its selection (a) is scored
+		var path = TestData.path(TestData.entry(List.of(), List.of(), List.of()), TestData.entry(List.of(), List.of(A), List.of()));
+		List<Metrics> metrics = engine.calculate(PathView.of("path.json", "id", "A", 0, path), false);
+		assertEquals(2, metrics.size());
+
+		Metrics layer = metrics.get(0);
+		assertEquals(1, layer.score.precision, DELTA);
+		assertTrue(Double.isNaN(layer.precisionAtK));
+		assertTrue(Double.isNaN(layer.mrr));
+		assertTrue(Double.isNaN(layer.ndcg));
+	}
+
+	@Test
+	void hypothesesAreCountedOncePerLayer() throws IOException {
+		MetricEngine engine = new MetricEngine(this.createEvaluator());
+		// a is scored by both sets
+		var path = TestData.path(TestData.entry(List.of(TestData.set(A), TestData.set(A, B)), List.of(), List.of()));
+		List<Metrics> metrics = engine.calculate(PathView.of("path.json", "id", "A", 0, path), false);
+		for (Metrics m : metrics) {
+			assertEquals(1, m.score.tp);
+			assertEquals(0, m.score.fp);
+			assertEquals(1, m.score.fn);
+		}
+	}
+
+	private Evaluator createEvaluator() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		JsonFiles.write(evalFile, new EvaluationData(1));
+		Evaluator evaluator = new Evaluator(null, evalFile);
+		evaluator.setClassification(0, A, CORRECT);
+		evaluator.setClassification(0, B, WRONG);
+		evaluator.setClassification(0, C, RATHER_CORRECT);
+		evaluator.setClassification(0, D, RATHER_WRONG);
+		evaluator.setClassification(0, E, CORRECT);
+		return evaluator;
+	}
+}
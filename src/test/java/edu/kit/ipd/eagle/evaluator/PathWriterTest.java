@@ -0,0 +1,84 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link PathWriter}.
+ */
+class PathWriterTest {
+	// More paths than the writer queues .. the callers have to wait
+	private static final int PATHS = 1000;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void files() throws IOException {
+		try (PathWriter writer = new PathWriter(this.directory.toFile(), PathStorage.FILES)) {
+			for (int i = 0; i < PATHS; i++) {
+				writer.write("A", PathWriterTest.view(i));
+			}
+		}
+		for (int i = 0; i < PATHS; i++) {
+			String content = Files.readString(this.directory.resolve("path-" + i + ".json"), StandardCharsets.UTF_8);
+			assertTrue(content.contains("\"id-" + i + "\""), content);
+		}
+	}
+
+	@Test
+	void jsonLines() throws IOException {
+		try (PathWriter writer = new PathWriter(this.directory.toFile(), PathStorage.JSON_LINES)) {
+			for (int i = 0; i < PATHS; i++) {
+				writer.write(i % 2 == 0 ? "A" : "B", PathWriterTest.view(i));
+			}
+		}
+		List<String> a = Files.readAllLines(this.directory.resolve("A.paths.jsonl"), StandardCharsets.UTF_8);
+		List<String> b = Files.readAllLines(this.directory.resolve("B.paths.jsonl"), StandardCharsets.UTF_8);
+		assertEquals(PATHS / 2, a.size());
+		assertEquals(PATHS / 2, b.size());
+		// One path per line in the order of writing
+		for (int i = 0; i < PATHS / 2; i++) {
+			assertTrue(a.get(i).contains("\"id-" + 2 * i + "\""), a.get(i));
+			assertTrue(b.get(i).contains("\"id-" + (2 * i + 1) + "\""), b.get(i));
+		}
+	}
+
+	@Test
+	void zip() throws IOException {
+		try (PathWriter writer = new PathWriter(this.directory.toFile(), PathStorage.ZIP)) {
+			for (int i = 0; i < PATHS; i++) {
+				writer.write("A", PathWriterTest.view(i));
+			}
+		}
+
+		List<String> names = new ArrayList<>();
+		try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(this.directory.resolve("A.paths.zip")), StandardCharsets.UTF_8)) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				String content = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+				assertTrue(content.contains("\"id-" + names.size() + "\""), content);
+				names.add(entry.getName());
+			}
+		}
+		assertEquals(PATHS, names.size());
+		assertEquals("path-0.json", names.get(0));
+		assertEquals("path-" + (PATHS - 1) + ".json", names.get(PATHS - 1));
+	}
+
+	private static PathView view(int i) {
+		return PathView.of("path-" + i + ".json", TestData.exploration("id-" + i, null));
+	}
+}
@@ -0,0 +1,117 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for {@link ResultCache}. Entries are addressed by the classifications
+ * of the scored values only.
+ */
+class ResultCacheTest {
+	private static final long MIB = 1024 * 1024;
+
+	private static final HypothesisDTO A = TestData.hypothesis("a", 0.5);
+	private static final HypothesisDTO B = TestData.hypothesis("b", 0.5);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void storedPathsAreFound() throws IOException {
+		ResultCache cache = ResultCache.open(this.directory.resolve("cache").toFile(), MIB);
+		String key = cache.getKey(this.createExploration("content"), Configuration.DEFAULT);
+		List<List<String>> values = List.of(List.of("a"));
+		String classifications = ResultCache.hash(List.of(Map.of("a", CORRECT)), values);
+		cache.put(key, "A", values, classifications, List.of(this.createPath()));
+
+		assertEquals(values, cache.getValues(key, "A"));
+		List<ScoredPath> cached = cache.get(key, "A", classifications);
+		assertEquals(1, cached.size());
+		assertEquals("path.json", cached.get(0).getName());
+
+		assertNull(cache.getValues(key, "B"));
+		assertNull(cache.get(key, "A", ResultCache.hash(List.of(Map.of("a", WRONG)), values)));
+	}
+
+	@Test
+	void keyDependsOnTheExplorationFile() throws IOException {
+		ResultCache cache = ResultCache.open(this.directory.resolve("cache").toFile(), MIB);
+		File exploration = this.createExploration("content");
+		String key = cache.getKey(exploration, Configuration.DEFAULT);
+		assertEquals(key, cache.getKey(exploration, Configuration.DEFAULT));
+
+		Files.writeString(exploration.toPath(), "changed");
+		assertNotEquals(key, cache.getKey(exploration, Configuration.DEFAULT));
+	}
+
+	@Test
+	void onlyClassificationsOfScoredValuesMatter() {
+		List<List<String>> values = List.of(List.of("a", "b"), List.of());
+		String hash = ResultCache.hash(List.of(Map.of("a", CORRECT), Map.of()), values);
+
+		// Other values and other layers are not scored
+		assertEquals(hash, ResultCache.hash(List.of(Map.of("a", CORRECT, "c", WRONG), Map.of("a", CORRECT)), values));
+		// The order of the values does not matter
+		assertEquals(hash, ResultCache.hash(List.of(Map.of("a", CORRECT)), List.of(List.of("b", "a"), List.of())));
+
+		assertNotEquals(hash, ResultCache.hash(List.of(Map.of("a", WRONG), Map.of()), values));
+		assertNotEquals(hash, ResultCache.hash(List.of(Map.of("a", CORRECT, "b", WRONG), Map.of()), values));
+		// Same values in other layers
+		assertNotEquals(hash, ResultCache.hash(List.of(Map.of(), Map.of("a", CORRECT)), List.of(List.of(), List.of("a", "b"))));
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+		File directory = this.directory.resolve("cache").toFile();
+		ResultCache cache = ResultCache.open(directory, MIB);
+		List<List<String>> values = List.of(List.of("a"));
+		String classifications = ResultCache.hash(List.of(Map.of()), values);
+		cache.put("first", "A", values, classifications, List.of(this.createPath()));
+		long size = 0;
+		for (File f : directory.listFiles()) {
+			size += f.length();
+			// Used a minute ago
+			f.setLastModified(System.currentTimeMillis() - 60000);
+		}
+
+		// Room for the entries of one key only
+		cache = ResultCache.open(directory, size);
+		cache.put("second", "A", values, classifications, List.of(this.createPath()));
+		assertNull(cache.getValues("first", "A"));
+		assertNull(cache.get("first", "A", classifications));
+		assertEquals(values, cache.getValues("second", "A"));
+		assertEquals(1, cache.get("second", "A", classifications).size());
+	}
+
+	private File createExploration(String content) throws IOException {
+		File exploration = this.directory.resolve("exploration.json").toFile();
+		Files.writeString(exploration.toPath(), content);
+		return exploration;
+	}
+
+	private ScoredPath createPath() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		JsonFiles.write(evalFile, new EvaluationData(1));
+		Evaluator evaluator = new Evaluator(null, evalFile);
+		evaluator.setClassification(0, A, CORRECT);
+		evaluator.setClassification(0, B, WRONG);
+
+		PathView view = PathView.of("path.json", "id", "A", 0, TestData.path(TestData.entry(List.of(TestData.set(A, B)), List.of(), List.of())));
+		return new ScoredPath(view, evaluator.score(view, false, new int[] { 1 }));
+	}
+}
@@ -0,0 +1,195 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import org.fuchss.tools.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link ResultStore}.
+ */
+class ResultStoreTest {
+	private static final double DELTA = 1E-9;
+
+	// P: 1, R: 1, F1: 1
+	private static final Score PERFECT = new Score(1, 0, 0);
+	// P: 0.5, R: 1, F1: 2/3
+	private static final Score HALF_PRECISION = new Score(1, 1, 0);
+	// P: 0, R: 0, F1: NaN
+	private static final Score NOTHING = new Score(0, 1, 1);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void bestCombinationByMeanF1PerLayer() throws IOException {
+		try (ResultStore store = ResultStore.open(this.directory.toFile())) {
+			store.append("s1", "A", 0, List.of(PERFECT, HALF_PRECISION));
+			store.append("s2", "A", 0, List.of(HALF_PRECISION, HALF_PRECISION));
+			store.append("s1", "B", 0, List.of(HALF_PRECISION, PERFECT));
+			store.append("s2", "B", 0, List.of(HALF_PRECISION, PERFECT));
+
+			Map<Integer, Tuple2<String, Double>> best = store.findBestCombinationByMeanF1(0);
+			assertEquals(2, best.size());
+			assertEquals("A", best.get(0).getFirst());
+			assertEquals((1 + 2.0 / 3) / 2, best.get(0).getSecond(), DELTA);
+			assertEquals("B", best.get(ResultStore.ALL_LAYERS).getFirst());
+			assertEquals(1, best.get(ResultStore.ALL_LAYERS).getSecond(), DELTA);
+		}
+	}
+
+	@Test
+	void undefinedF1CountsAsZero() throws IOException {
+		try (ResultStore store = ResultStore.open(this.directory.toFile())) {
+			store.append("s1", "A", 0, List.of(NOTHING));
+			store.append("s2", "A", 0, List.of(PERFECT));
+			store.append("s1", "B", 0, List.of(HALF_PRECISION));
+			store.append("s2", "B", 0, List.of(HALF_PRECISION));
+
+			Tuple2<String, Double> best = store.findBestCombinationByMeanF1(0).get(ResultStore.ALL_LAYERS);
+			assertEquals("B", best.getFirst());
+			assertEquals(2.0 / 3, best.getSecond(), DELTA);
+		}
+	}
+
+	@Test
+	void onlyPathsOfTheRequestedRankAreCompared() throws IOException {
+		try (ResultStore store = ResultStore.open(this.directory.toFile())) {
+			store.append("s1", "A", 0, List.of(PERFECT));
+			store.append("s1", "A", 1, List.of(NOTHING));
+			store.append("s1", "B", 0, List.of(HALF_PRECISION));
+			store.append("s1", "B", 1, List.of(HALF_PRECISION));
+
+			assertEquals("A", store.findBestCombinationByMeanF1(0).get(ResultStore.ALL_LAYERS).getFirst());
+			assertEquals("B", store.findBestCombinationByMeanF1(1).get(ResultStore.ALL_LAYERS).getFirst());
+			assertTrue(store.findBestCombinationByMeanF1(2).isEmpty());
+		}
+	}
+
+	@Test
+	void explorationsAreNoRatingCombination() throws IOException {
+		try (ResultStore store = ResultStore.open(this.directory.toFile())) {
+			store.append("s1", PathView.EXPLORATION, -1, List.of(PERFECT));
+			store.append("s1", "A", 0, List.of(HALF_PRECISION));
+
+			assertEquals("A", store.findBestCombinationByMeanF1(0).get(ResultStore.ALL_LAYERS).getFirst());
+			assertThrows(IllegalArgumentException.class, () -> store.findBestCombinationByMeanF1(-1));
+		}
+	}
+
+	@Test
+	void rowsArePersisted() throws IOException {
+		File file = this.directory.toFile();
+		try (ResultStore store = ResultStore.open(file)) {
+			store.append("s1", "A", 0, List.of(HALF_PRECISION));
+		}
+		try (ResultStore store = ResultStore.open(file)) {
+			store.append("s2", "B", 0, List.of(PERFECT));
+			store.append("s1", "A", 0, List.of(HALF_PRECISION));
+		}
+		try (ResultStore store = ResultStore.open(file)) {
+			Tuple2<String, Double> best = store.findBestCombinationByMeanF1(0).get(ResultStore.ALL_LAYERS);
+			assertEquals("B", best.getFirst());
+			assertEquals(1, best.getSecond(), DELTA);
+		}
+	}
+
+	@Test
+	void onlyTheLatestRowsOfAScenarioAreCompared() throws IOException {
+		File file = this.directory.toFile();
+		try (ResultStore store = ResultStore.open(file)) {
+			store.append("s1", "A", 0, List.of(NOTHING, NOTHING));
+			store.append("s1", "B", 0, List.of(HALF_PRECISION, HALF_PRECISION));
+		}
+		// Scored again (e.g. after more classifications)
+		try (ResultStore store = ResultStore.open(file)) {
+			store.append("s1", "A", 0, List.of(PERFECT, PERFECT));
+			store.append("s1", "B", 0, List.of(HALF_PRECISION, HALF_PRECISION));
+
+			// All rows: A (0 + 1) / 2, B 2/3
+			Map<Integer, Tuple2<String, Double>> best = store.findBestCombinationByMeanF1(0);
+			assertEquals("A", best.get(0).getFirst());
+			assertEquals(1, best.get(0).getSecond(), DELTA);
+			assertEquals("A", best.get(ResultStore.ALL_LAYERS).getFirst());
+			assertEquals(1, best.get(ResultStore.ALL_LAYERS).getSecond(), DELTA);
+		}
+	}
+
+	@Test
+	void rowsOfAnIncompletePathAreIgnored() throws IOException {
+		try (ResultStore store = ResultStore.open(this.directory.toFile())) {
+			store.append("s1", "A", 0, List.of(HALF_PRECISION));
+			store.append("s2", "A", 0, List.of(HALF_PRECISION));
+		}
+		// Simulate a crash while appending the layers of a path: the score of all
+		// layers (the last row of a path) is missing
+		this.appendInts("scenario.int", 0);
+		this.appendInts("combination.int", 0);
+		this.appendInts("rank.int", 0);
+		this.appendInts("layer.int", 0);
+		this.appendInts("tp.int", 1);
+		this.appendInts("fp.int", 0);
+		this.appendInts("fn.int", 0);
+		this.appendDoubles("precision.double", 1);
+		this.appendDoubles("recall.double", 1);
+		this.appendDoubles("f1.double", 1);
+
+		try (ResultStore store = ResultStore.open(this.directory.toFile())) {
+			Tuple2<String, Double> best = store.findBestCombinationByMeanF1(0).get(ResultStore.ALL_LAYERS);
+			assertEquals(2.0 / 3, best.getSecond(), DELTA);
+			assertFalse(store.findBestCombinationByMeanF1(0).containsKey(0));
+		}
+	}
+
+	@Test
+	void partiallyFlushedRowsAreDropped() throws IOException {
+		File file = this.directory.toFile();
+		try (ResultStore store = ResultStore.open(file)) {
+			store.append("s1", "A", 0, List.of(HALF_PRECISION));
+			store.append("s1", "B", 0, List.of(NOTHING));
+		}
+
+		// Simulate a crash while flushing: the next row has only been written to
+		// some columns
+		try (var channel = Files.newByteChannel(this.directory.resolve("combination.int"), StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 0));
+		}
+		try (var channel = Files.newByteChannel(this.directory.resolve("f1.double"), StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.allocate(Double.BYTES).putDouble(0, 1));
+		}
+
+		try (ResultStore store = ResultStore.open(file)) {
+			store.append("s2", "B", 0, List.of(PERFECT));
+
+			// A: 2/3, B: (0 + 1) / 2 .. the misaligned row would yield A: (2/3 + 1) / 2
+			Tuple2<String, Double> best = store.findBestCombinationByMeanF1(0).get(ResultStore.ALL_LAYERS);
+			assertEquals("A", best.getFirst());
+			assertEquals(2.0 / 3, best.getSecond(), DELTA);
+		}
+	}
+
+	private void appendInts(String column, int value) throws IOException {
+		try (var channel = Files.newByteChannel(this.directory.resolve(column), StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value));
+		}
+	}
+
+	private void appendDoubles(String column, double value) throws IOException {
+		try (var channel = Files.newByteChannel(this.directory.resolve(column), StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.allocate(Double.BYTES).putDouble(0, value));
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ScoreMatrix}. The expected values are calculated by
+ * {@link Score} (as before the matrix was introduced).
+ */
+class ScoreMatrixTest {
+	private static final int[] HITS = { 2, 0, 3 };
+	private static final int[] BAD = { 1, 0, 0 };
+	// One more layer than scored .. its good hypotheses count as false negatives
+	// of all layers
+	private static final int[] POSSIBLE_HITS = { 4, 0, 3, 2 };
+
+	@Test
+	void layers() {
+		ScoreMatrix matrix = new ScoreMatrix(HITS, BAD, POSSIBLE_HITS);
+		assertEquals(3, matrix.layers());
+		assertEquals(4, matrix.toScores(null).size());
+	}
+
+	@Test
+	void scoresMatchScore() {
+		ScoreMatrix matrix = new ScoreMatrix(HITS, BAD, POSSIBLE_HITS);
+		List<Score> expected = ScoreMatrixTest.expectedScores(HITS, BAD, POSSIBLE_HITS);
+		for (int layer = 0; layer <= matrix.layers(); layer++) {
+			Score score = expected.get(layer);
+			assertEquals(score.tp, matrix.tp(layer));
+			assertEquals(score.fp, matrix.fp(layer));
+			assertEquals(score.fn, matrix.fn(layer));
+			// Includes the undefined scores (NaN) of layer 1
+			assertEquals(score.precision, matrix.precision(layer));
+			assertEquals(score.recall, matrix.recall(layer));
+			assertEquals(score.f1, matrix.f1(layer));
+			ScoreMatrixTest.assertScore(score, matrix.toScore(layer));
+		}
+	}
+
+	@Test
+	void totalScore() {
+		ScoreMatrix matrix = new ScoreMatrix(HITS, BAD, POSSIBLE_HITS);
+		// tp: 2 + 0 + 3, fp: 1, fn: (4 + 0 + 3 + 2) - 5
+		ScoreMatrixTest.assertScore(new Score(5, 1, 4), matrix.toScore(matrix.layers()));
+	}
+
+	@Test
+	void compareTotalMatchesScore() {
+		int[][] hits = { HITS, { 0, 0, 0 }, { 4, 0, 3 }, { 1, 0, 0 } };
+		int[][] bad = { BAD, { 0, 0, 0 }, { 0, 0, 0 }, { 5, 1, 1 } };
+		for (int a = 0; a < hits.length; a++) {
+			for (int b = 0; b < hits.length; b++) {
+				ScoreMatrix first = new ScoreMatrix(hits[a], bad[a], POSSIBLE_HITS);
+				ScoreMatrix second = new ScoreMatrix(hits[b], bad[b], POSSIBLE_HITS);
+				Score firstTotal = ScoreMatrixTest.expectedScores(hits[a], bad[a], POSSIBLE_HITS).get(3);
+				Score secondTotal = ScoreMatrixTest.expectedScores(hits[b], bad[b], POSSIBLE_HITS).get(3);
+				assertEquals(Integer.signum(firstTotal.compareTo(secondTotal)), Integer.signum(first.compareTotal(second)));
+			}
+		}
+	}
+
+	@Test
+	void withPossibleHits() {
+		int[] possibleHits = { 5, 1, 3 };
+		ScoreMatrix matrix = new ScoreMatrix(HITS, BAD, POSSIBLE_HITS).withPossibleHits(possibleHits);
+		List<Score> expected = ScoreMatrixTest.expectedScores(HITS, BAD, possibleHits);
+		List<Score> actual = matrix.toScores(null);
+		assertEquals(expected.size(), actual.size());
+		for (int layer = 0; layer < expected.size(); layer++) {
+			ScoreMatrixTest.assertScore(expected.get(layer), actual.get(layer));
+		}
+	}
+
+	private static List<Score> expectedScores(int[] hits, int[] bad, int[] possibleHits) {
+		List<Score> scores = new ArrayList<>();
+		int tp = 0;
+		int fp = 0;
+		for (int i = 0; i < hits.length; i++) {
+			scores.add(new Score(hits[i], bad[i], possibleHits[i] - hits[i]));
+			tp += hits[i];
+			fp += bad[i];
+		}
+		int allPossibleHits = 0;
+		for (int possible : possibleHits) {
+			allPossibleHits += possible;
+		}
+		scores.add(new Score(tp, fp, allPossibleHits - tp));
+		return scores;
+	}
+
+	private static void assertScore(Score expected, Score actual) {
+		assertEquals(expected.tp, actual.tp);
+		assertEquals(expected.fp, actual.fp);
+		assertEquals(expected.fn, actual.fn);
+		// Compares precision, recall and F1
+		assertEquals(expected, actual);
+	}
+}
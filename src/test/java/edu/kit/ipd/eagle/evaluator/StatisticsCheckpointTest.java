@@ -0,0 +1,138 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for {@link StatisticsCheckpoint}. Completed units have to survive a
+ * restart as long as neither the exploration file nor the classifications of
+ * the scored values changed.
+ */
+class StatisticsCheckpointTest {
+	private static final HypothesisDTO A = TestData.hypothesis("a", 0.5);
+	private static final HypothesisDTO B = TestData.hypothesis("b", 0.5);
+
+	private static final List<List<String>> VALUES = List.of(List.of("a", "b"));
+	private static final List<Map<String, Classification>> CLASSIFICATIONS = List.of(Map.of("a", CORRECT, "b", WRONG));
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void completedUnitsAreRestored() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		File exploration = this.createExploration();
+
+		StatisticsCheckpoint checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		String fingerprint = checkpoint.fingerprint(exploration);
+		assertNull(checkpoint.get(exploration, "A", fingerprint, CLASSIFICATIONS));
+		this.complete(checkpoint, exploration, "A", fingerprint);
+		assertEquals(1, checkpoint.get(exploration, "A", fingerprint, CLASSIFICATIONS).size());
+		assertNull(checkpoint.get(exploration, "B", fingerprint, CLASSIFICATIONS));
+
+		// Restart
+		checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		List<ScoredPath> restored = checkpoint.get(exploration, "A", fingerprint, CLASSIFICATIONS);
+		assertEquals(1, restored.size());
+		assertEquals("path.json", restored.get(0).getName());
+		assertNull(checkpoint.get(exploration, "B", fingerprint, CLASSIFICATIONS));
+	}
+
+	@Test
+	void unitsOfChangedExplorationsAreRecomputed() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		File exploration = this.createExploration();
+		StatisticsCheckpoint checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		String fingerprint = checkpoint.fingerprint(exploration);
+		this.complete(checkpoint, exploration, "A", fingerprint);
+
+		// Another configuration
+		Configuration configuration = new Configuration(1, 1, null, false, PathStorage.FILES, 0, 0.95, 3, null, 0);
+		StatisticsCheckpoint other = StatisticsCheckpoint.open(evalFile, configuration);
+		assertNull(other.get(exploration, "A", other.fingerprint(exploration), CLASSIFICATIONS));
+
+		Files.writeString(exploration.toPath(), "{\"changed\": true}");
+		String changed = checkpoint.fingerprint(exploration);
+		assertNotEquals(fingerprint, changed);
+		assertNull(checkpoint.get(exploration, "A", changed, CLASSIFICATIONS));
+	}
+
+	@Test
+	void onlyClassificationsOfScoredValuesMatter() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		File exploration = this.createExploration();
+		StatisticsCheckpoint checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		String fingerprint = checkpoint.fingerprint(exploration);
+		this.complete(checkpoint, exploration, "A", fingerprint);
+
+		// c is not scored by the unit
+		var other = List.of(Map.of("a", CORRECT, "b", WRONG, "c", CORRECT), Map.of("a", WRONG));
+		assertEquals(1, checkpoint.get(exploration, "A", fingerprint, other).size());
+
+		var changed = List.of(Map.of("a", CORRECT, "b", CORRECT));
+		assertNull(checkpoint.get(exploration, "A", fingerprint, changed));
+		var removed = List.<Map<String, Classification>>of(Map.of("a", CORRECT));
+		assertNull(checkpoint.get(exploration, "A", fingerprint, removed));
+	}
+
+	@Test
+	void incompleteLinesAreDropped() throws IOException {
+		File evalFile = this.directory.resolve("test.eval.json").toFile();
+		File exploration = this.createExploration();
+		StatisticsCheckpoint checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		String fingerprint = checkpoint.fingerprint(exploration);
+		this.complete(checkpoint, exploration, "A", fingerprint);
+		// Recomputed unit (the older line is outdated)
+		this.complete(checkpoint, exploration, "A", fingerprint);
+
+		// Simulate a crash while appending a unit
+		Path progressFile = Path.of(evalFile.getAbsolutePath() + ".stats.progress");
+		Files.writeString(progressFile, "{\"file\": \"exploration.json\", \"combi", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		assertEquals(3, Files.readAllLines(progressFile).size());
+
+		checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		assertEquals(1, checkpoint.get(exploration, "A", fingerprint, CLASSIFICATIONS).size());
+		assertEquals(1, Files.readAllLines(progressFile).size());
+
+		// Appending works after the rewrite
+		this.complete(checkpoint, exploration, "B", fingerprint);
+		checkpoint = StatisticsCheckpoint.open(evalFile, Configuration.DEFAULT);
+		assertEquals(1, checkpoint.get(exploration, "A", fingerprint, CLASSIFICATIONS).size());
+		assertEquals(1, checkpoint.get(exploration, "B", fingerprint, CLASSIFICATIONS).size());
+	}
+
+	private File createExploration() throws IOException {
+		File exploration = this.directory.resolve("exploration.json").toFile();
+		Files.writeString(exploration.toPath(), "{}");
+		return exploration;
+	}
+
+	private void complete(StatisticsCheckpoint checkpoint, File exploration, String combination, String fingerprint) throws IOException {
+		File evalFile = this.directory.resolve("paths.eval.json").toFile();
+		JsonFiles.write(evalFile, new EvaluationData(1));
+		Evaluator evaluator = new Evaluator(null, evalFile);
+		evaluator.setClassification(0, A, CORRECT);
+		evaluator.setClassification(0, B, WRONG);
+
+		PathView view = PathView.of("path.json", "id", combination, 0, TestData.path(TestData.entry(List.of(TestData.set(A, B)), List.of(), List.of())));
+		List<ScoredPath> paths = List.of(new ScoredPath(view, evaluator.score(view, false, new int[] { 1 })));
+		checkpoint.complete(exploration, combination, fingerprint, VALUES, ResultCache.hash(CLASSIFICATIONS, VALUES), paths);
+	}
+}
@@ -0,0 +1,138 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import static edu.kit.ipd.eagle.evaluator.Classification.CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.RATHER_CORRECT;
+import static edu.kit.ipd.eagle.evaluator.Classification.WRONG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.fuchss.tools.tuple.Tuple3;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSet;
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+
+/**
+ * Tests for {@link StratifiedSampler}. The exploration consists of one layer
+ * with sets of two hypotheses; only the first hypothesis of each set is scored.
+ * The classification of a hypothesis is given by its value.
+ */
+class StratifiedSamplerTest {
+	private static final double DELTA = 1E-9;
+	private static final double CONFIDENCE = 0.95;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void classifyingAllHypothesesYieldsExactScores() throws IOException {
+		// Scored: 3 correct, 1 wrong; not scored: 2 correct, 1 wrong, 1 rather correct
+		Evaluator evaluator = this.createEvaluator(List.of("c1", "c2", "c3", "w1"), List.of("c4", "c5", "w2", "r1"));
+		Set<String> asked = new HashSet<>();
+		var estimates = new StratifiedSampler(evaluator, 0.001, CONFIDENCE, 2, 4).sample(next -> {
+			assertTrue(asked.add(next.getSecond().getValue()));
+			return StratifiedSamplerTest.classify(next);
+		});
+
+		assertEquals(1, estimates.size());
+		var estimate = estimates.get(0);
+		assertEquals(8, estimate.hypotheses);
+		assertEquals(8, estimate.sampled);
+		assertEquals(8, asked.size());
+		assertEquals(5.0 / 8, estimate.good, DELTA);
+		assertEquals(2.0 / 8, estimate.bad, DELTA);
+
+		// tp 3, fp 1, fn 2
+		StratifiedSamplerTest.assertExact(3.0 / 4, estimate.getPrecision().getFirst(), estimate.getPrecision().getSecond());
+		StratifiedSamplerTest.assertExact(3.0 / 5, estimate.getRecall().getFirst(), estimate.getRecall().getSecond());
+		StratifiedSamplerTest.assertExact(6.0 / 9, estimate.getF1().getFirst(), estimate.getF1().getSecond());
+	}
+
+	@Test
+	void samplingStopsAtTheMargin() throws IOException {
+		// 300 sets: 2/3 of the scored hypotheses are correct, 1/3 of the others
+		List<String> scored = new ArrayList<>();
+		List<String> others = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			scored.add((i % 3 == 0 ? "w" : "c") + "-scored-" + i);
+			others.add((i % 3 == 0 ? "c" : "w") + "-other-" + i);
+		}
+		Evaluator evaluator = this.createEvaluator(scored, others);
+		double margin = 0.1;
+		var estimate = new StratifiedSampler(evaluator, margin, CONFIDENCE, 5, 4).sample(StratifiedSamplerTest::classify).get(0);
+
+		assertEquals(600, estimate.hypotheses);
+		assertTrue(estimate.sampled < estimate.hypotheses, "Sampled: " + estimate.sampled);
+		for (ConfidenceInterval interval : List.of(estimate.goodInterval, estimate.badInterval, estimate.truePositivesInterval, estimate.falsePositivesInterval,
+				estimate.falseNegativesInterval)) {
+			assertTrue((interval.upper - interval.lower) / 2 <= margin);
+		}
+		StratifiedSamplerTest.assertCovers(0.5, estimate.goodInterval);
+		StratifiedSamplerTest.assertCovers(1.0 / 3, estimate.truePositivesInterval);
+		StratifiedSamplerTest.assertCovers(1.0 / 6, estimate.falsePositivesInterval);
+		StratifiedSamplerTest.assertCovers(1.0 / 6, estimate.falseNegativesInterval);
+		StratifiedSamplerTest.assertCovers(2.0 / 3, estimate.getPrecision().getSecond());
+		StratifiedSamplerTest.assertCovers(2.0 / 3, estimate.getRecall().getSecond());
+		StratifiedSamplerTest.assertCovers(2.0 / 3, estimate.getF1().getSecond());
+	}
+
+	@Test
+	void classifiedHypothesesAreNotAskedAgain() throws IOException {
+		Evaluator evaluator = this.createEvaluator(List.of("c1", "c2", "w1"), List.of("w2", "c3", "c4"));
+		List<String> asked = new ArrayList<>();
+		var estimate = new StratifiedSampler(evaluator, 0.001, CONFIDENCE, 1, 1).sample(next -> {
+			String value = next.getSecond().getValue();
+			if (asked.isEmpty()) {
+				// E.g. resolved by the classification database in the meantime
+				for (String other : List.of("c1", "c2", "c3", "c4")) {
+					if (!other.equals(value)) {
+						evaluator.setClassification(0, TestData.hypothesis(other, Double.NaN), CORRECT);
+					}
+				}
+			}
+			asked.add(value);
+			return StratifiedSamplerTest.classify(next);
+		}).get(0);
+
+		// The first one and the wrong ones
+		assertEquals(asked.get(0).startsWith("c") ? 3 : 2, asked.size(), asked.toString());
+		for (String value : asked.subList(1, asked.size())) {
+			assertTrue(value.startsWith("w"), value);
+		}
+		assertEquals(6, estimate.sampled);
+		assertEquals(4.0 / 6, estimate.good, DELTA);
+		assertEquals(2.0 / 6, estimate.bad, DELTA);
+	}
+
+	private Evaluator createEvaluator(List<String> scored, List<String> others) throws IOException {
+		List<IHypothesesSet> sets = new ArrayList<>();
+		for (int i = 0; i < scored.size(); i++) {
+			sets.add(TestData.set(TestData.hypothesis(scored.get(i), 0.9), TestData.hypothesis(others.get(i), 0.1)));
+		}
+		var root = TestData.entry(sets, List.of(), List.of());
+		return Evaluator.of(TestData.exploration("sentence", root), this.directory.resolve("test.eval.json").toFile());
+	}
+
+	private static Classification classify(Tuple3<Integer, HypothesisDTO, String> next) {
+		String value = next.getSecond().getValue();
+		return value.startsWith("c") ? CORRECT : value.startsWith("w") ? WRONG : RATHER_CORRECT;
+	}
+
+	private static void assertExact(double expected, double estimate, ConfidenceInterval interval) {
+		assertEquals(expected, estimate, DELTA);
+		assertEquals(expected, interval.lower, DELTA);
+		assertEquals(expected, interval.upper, DELTA);
+	}
+
+	private static void assertCovers(double expected, ConfidenceInterval interval) {
+		assertTrue(interval.lower <= expected && expected <= interval.upper, expected + " not in " + interval);
+	}
+}
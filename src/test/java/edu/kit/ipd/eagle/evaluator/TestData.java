@@ -0,0 +1,116 @@
+package edu.kit.ipd.eagle.evaluator;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSelection;
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesesSet;
+import edu.kit.ipd.eagle.port.hypothesis.IHypothesis;
+import edu.kit.ipd.eagle.port.xplore.IExplorationResult;
+import edu.kit.ipd.eagle.port.xplore.IPath;
+import edu.kit.ipd.eagle.port.xplore.dto.HypothesisDTO;
+import edu.kit.ipd.eagle.port.xplore.layer.ILayerEntry;
+
+/**
+ * Creates exploration data for tests. The interfaces of the exploration are
+ * implemented by proxies that only answer the methods used by the evaluator
+ * (all other methods return {@code null}, {@code 0} or {@code false}).
+ */
+final class TestData {
+	// Answer for null (maps of answers do not support null values)
+	private static final Object NULL = new Object();
+
+	private TestData() {
+		throw new IllegalAccessError();
+	}
+
+	/**
+	 * Create an exploration result.
+	 *
+	 * @param id    the id of the exploration
+	 * @param root  the root of the exploration tree (may be {@code null})
+	 * @param paths the paths of the exploration
+	 * @return the exploration result
+	 */
+	static IExplorationResult exploration(String id, ILayerEntry root, IPath... paths) {
+		return TestData.proxy(IExplorationResult.class, Map.of("getId", id, "getExplorationRoot", root == null ? TestData.NULL : root, "getPaths", List.of(paths)));
+	}
+
+	/**
+	 * Create a hypothesis.
+	 *
+	 * @param value      the value of the hypothesis
+	 * @param confidence the confidence of the hypothesis
+	 * @return the hypothesis
+	 */
+	static HypothesisDTO hypothesis(String value, double confidence) {
+		return new HypothesisDTO(TestData.proxy(IHypothesis.class, Map.of("getValue", value, "getConfidence", confidence)));
+	}
+
+	/**
+	 * Create a set of hypotheses (without range) where only one hypothesis is
+	 * valid.
+	 *
+	 * @param hypotheses the hypotheses sorted by confidence
+	 * @return the set of hypotheses
+	 */
+	static IHypothesesSet set(HypothesisDTO... hypotheses) {
+		return TestData.proxy(IHypothesesSet.class, Map.of("getSortedHypotheses", List.of(hypotheses), "isOnlyOneHypothesisValid", true));
+	}
+
+	/**
+	 * Create an entry of a layer.
+	 *
+	 * @param hypotheses the sets of hypotheses of the entry
+	 * @param selected   the selected hypotheses of the layer before
+	 * @param children   the children of the entry
+	 * @return the entry
+	 */
+	static ILayerEntry entry(List<IHypothesesSet> hypotheses, List<HypothesisDTO> selected, List<ILayerEntry> children) {
+		IHypothesesSelection selection = TestData.proxy(IHypothesesSelection.class, Map.of("getSelectedHypotheses", List.copyOf(selected)));
+		return TestData.proxy(ILayerEntry.class, Map.of("getHypotheses", hypotheses, "getSelectionsFromBefore", List.of(selection), "getChildren", children));
+	}
+
+	/**
+	 * Create a path.
+	 *
+	 * @param entries the entries of the path (one per layer)
+	 * @return the path
+	 */
+	static IPath path(ILayerEntry... entries) {
+		return TestData.proxy(IPath.class, Map.of("getPath", List.of(entries)));
+	}
+
+	/**
+	 * Implement an interface by a map of answers (method name to return value).
+	 *
+	 * @param <T>     the type of the interface
+	 * @param type    the interface
+	 * @param answers the return values by method name
+	 * @return the implementation
+	 */
+	static <T> T proxy(Class<T> type, Map<String, Object> answers) {
+		Object proxy = Proxy.newProxyInstance(TestData.class.getClassLoader(), new Class<?>[] { type }, (self, method, args) -> {
+			switch (method.getName()) {
+			case "equals":
+				return self == args[0];
+			case "hashCode":
+				return System.identityHashCode(self);
+			case "toString":
+				return type.getSimpleName() + answers.getOrDefault("getId", "");
+			default:
+				break;
+			}
+			Object answer = answers.get(method.getName());
+			if (answer != null && answer != TestData.NULL) {
+				return answer;
+			}
+			Class<?> result = method.getReturnType();
+			// Default value of primitives
+			return result.isPrimitive() && result != void.class ? Array.get(Array.newInstance(result, 1), 0) : null;
+		});
+		return type.cast(proxy);
+	}
+}